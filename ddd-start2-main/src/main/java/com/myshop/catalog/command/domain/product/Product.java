@@ -1,6 +1,7 @@
 package com.myshop.catalog.command.domain.product;
 
 import com.myshop.catalog.command.domain.category.CategoryId;
+import com.myshop.common.event.Events;
 import com.myshop.common.jpa.MoneyConverter;
 import com.myshop.common.model.Money;
 
@@ -68,6 +69,13 @@ public class Product {
     public void changeImages(List<Image> newImages) {
         images.clear();
         images.addAll(newImages);
+        Events.raise(new ProductImagesChangedEvent(id.getId()));
+    }
+
+    public void changePrice(Money newPrice) {
+        if (newPrice.equals(price)) return;
+        this.price = newPrice;
+        Events.raise(new ProductPriceChangedEvent(id.getId(), newPrice.getValue()));
     }
 
     public String getFirstIamgeThumbnailPath() {
@@ -0,0 +1,23 @@
+package com.myshop.catalog.command.domain.product;
+
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
+@EventType("product.images-changed")
+public class ProductImagesChangedEvent extends Event {
+    private String productId;
+
+    public ProductImagesChangedEvent(String productId) {
+        super();
+        this.productId = productId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    @Override
+    public String aggregateKey() {
+        return productId;
+    }
+}
@@ -0,0 +1,29 @@
+package com.myshop.catalog.command.domain.product;
+
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
+@EventType("product.price-changed")
+public class ProductPriceChangedEvent extends Event {
+    private String productId;
+    private int newPrice;
+
+    public ProductPriceChangedEvent(String productId, int newPrice) {
+        super();
+        this.productId = productId;
+        this.newPrice = newPrice;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getNewPrice() {
+        return newPrice;
+    }
+
+    @Override
+    public String aggregateKey() {
+        return productId;
+    }
+}
@@ -0,0 +1,97 @@
+package com.myshop.catalog.infra;
+
+import com.myshop.catalog.command.domain.product.ProductImagesChangedEvent;
+import com.myshop.catalog.command.domain.product.ProductPriceChangedEvent;
+import com.myshop.catalog.query.product.ProductCache;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.infra.EventTail;
+import com.myshop.eventstore.infra.EventTypeRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 상품이 바뀐 트랜잭션이 커밋되면 조회 캐시에서 그 상품을 지운다.
+ * 다른 노드에서 바뀐 상품은 이벤트 저장소에 저장된 상품 이벤트를 EventTail 로 받아서 지운다.
+ * 이벤트 저장소 poll 주기(eventstore.tail.poll-interval-millis)만큼 늦게 지워질 수 있다.
+ */
+@Service
+public class ProductChangedEventHandler {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final long FETCH_SIZE = 1000;
+
+    private ProductCache productCache;
+    private EventTail eventTail;
+    private EventStore eventStore;
+    private Set<String> productEventTypes;
+    private EventTail.Subscription subscription;
+
+    public ProductChangedEventHandler(ProductCache productCache,
+                                      EventTail eventTail,
+                                      EventStore eventStore,
+                                      EventTypeRegistry typeRegistry) {
+        this.productCache = productCache;
+        this.eventTail = eventTail;
+        this.eventStore = eventStore;
+        this.productEventTypes = Set.of(
+                typeRegistry.idOf(ProductImagesChangedEvent.class),
+                typeRegistry.idOf(ProductPriceChangedEvent.class));
+    }
+
+    @TransactionalEventListener(
+            classes = ProductImagesChangedEvent.class,
+            phase = TransactionPhase.AFTER_COMMIT,
+            fallbackExecution = true
+    )
+    public void handle(ProductImagesChangedEvent event) {
+        productCache.evictProduct(event.getProductId());
+    }
+
+    @TransactionalEventListener(
+            classes = ProductPriceChangedEvent.class,
+            phase = TransactionPhase.AFTER_COMMIT,
+            fallbackExecution = true
+    )
+    public void handle(ProductPriceChangedEvent event) {
+        productCache.evictProduct(event.getProductId());
+    }
+
+    /**
+     * 시작한 뒤에 저장된 이벤트부터 받는다. 그 전에 바뀐 상품은 아직 캐시에 없다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        subscription = eventTail.subscribe(eventStore.getLastId(), FETCH_SIZE, false, this::evict);
+    }
+
+    private void evict(List<EventEntry> entries) {
+        // listener 가 예외를 던지면 구독이 끝나므로 여기서 처리한다
+        try {
+            for (EventEntry entry : entries) {
+                if (productEventTypes.contains(entry.getType()) && entry.getAggregateKey() != null) {
+                    productCache.evictProduct(entry.getAggregateKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("product cache eviction failed, invalidate all", e);
+            productCache.invalidateAll();
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+}
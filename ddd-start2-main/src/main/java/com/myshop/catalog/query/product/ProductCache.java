@@ -0,0 +1,95 @@
+package com.myshop.catalog.query.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품과 카테고리 상품 목록 페이지를 크기와 TTL 로 제한해서 메모리에 둔다.
+ * 상품이 바뀌면 그 상품과 그 상품이 들어 있는 페이지를 지운다.
+ * 지우기 전에 DB 에서 읽기 시작한 결과가 지운 뒤에 들어가지 않도록, 읽기 전에 받은 generation 이 그대로일 때만 넣는다.
+ * 여러 스레드가 같은 값을 읽으므로 영속 엔티티가 아닌 사본({@link ProductData#snapshot()})을 넣는다.
+ */
+@Component
+public class ProductCache {
+    private Cache<String, ProductData> products;
+    private Cache<String, CategoryProduct> categoryPages;
+    private AtomicLong generation = new AtomicLong();
+
+    public ProductCache(MeterRegistry registry,
+                        @Value("${catalog.cache.product.max-size:10000}") long productMaxSize,
+                        @Value("${catalog.cache.product.ttl-seconds:600}") long productTtlSeconds,
+                        @Value("${catalog.cache.category-page.max-size:1000}") long pageMaxSize,
+                        @Value("${catalog.cache.category-page.ttl-seconds:60}") long pageTtlSeconds) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(productMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(productTtlSeconds))
+                .recordStats()
+                .build();
+        this.categoryPages = Caffeine.newBuilder()
+                .maximumSize(pageMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(pageTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, products, "catalog.product");
+        CaffeineCacheMetrics.monitor(registry, categoryPages, "catalog.category-page");
+    }
+
+    /**
+     * DB 에서 읽기 전에 받아 두고 put 할 때 넘긴다.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public ProductData getProduct(String productId) {
+        return products.getIfPresent(productId);
+    }
+
+    public void putProduct(ProductData product, long loadedGeneration) {
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                products.put(product.getId().getId(), product);
+            }
+        }
+    }
+
+    public CategoryProduct getCategoryPage(Long categoryId, int page, int size) {
+        return categoryPages.getIfPresent(pageKey(categoryId, page, size));
+    }
+
+    public void putCategoryPage(Long categoryId, int page, int size, CategoryProduct categoryProduct, long loadedGeneration) {
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                categoryPages.put(pageKey(categoryId, page, size), categoryProduct);
+            }
+        }
+    }
+
+    public void evictProduct(String productId) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            products.invalidate(productId);
+            categoryPages.asMap().values().removeIf(categoryProduct ->
+                    categoryProduct.getItems().stream().anyMatch(item -> item.getId().equals(productId)));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            products.invalidateAll();
+            categoryPages.invalidateAll();
+        }
+    }
+
+    private String pageKey(Long categoryId, int page, int size) {
+        return categoryId + ":" + page + ":" + size;
+    }
+}
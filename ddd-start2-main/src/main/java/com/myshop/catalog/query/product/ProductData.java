@@ -49,6 +49,13 @@ public class ProductData {
         this.images.addAll(images);
     }
 
+    /**
+     * 영속 컨텍스트와 Hibernate 컬렉션을 떼어 낸 사본. 캐시에 넣어 여러 스레드가 함께 읽는다.
+     */
+    ProductData snapshot() {
+        return new ProductData(id, name, price, detail, images);
+    }
+
     public ProductId getId() {
         return id;
     }
@@ -4,12 +4,19 @@ import com.myshop.catalog.command.domain.category.CategoryId;
 import com.myshop.catalog.command.domain.product.ProductId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductDataDao extends Repository<ProductData, ProductId> {
     Optional<ProductData> findById(ProductId id);
 
     Page<ProductData> findByCategoryIdsContains(CategoryId id, Pageable pageable);
+
+    @Query("select distinct p from ProductData p left join fetch p.images where p.id in :ids")
+    List<ProductData> findAllWithImagesByIdIn(@Param("ids") Collection<ProductId> ids);
 }
@@ -8,9 +8,16 @@ import com.myshop.catalog.query.category.CategoryDataDao;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static java.util.stream.Collectors.toList;
@@ -19,21 +26,39 @@ import static java.util.stream.Collectors.toList;
 public class ProductQueryService {
     private ProductDataDao productDataDao;
     private CategoryDataDao categoryDataDao;
+    private ProductCache productCache;
+    private TransactionTemplate readOnly;
 
     public ProductQueryService(ProductDataDao productDataDao,
-                               CategoryDataDao categoryDataDao) {
+                               CategoryDataDao categoryDataDao,
+                               ProductCache productCache,
+                               PlatformTransactionManager transactionManager) {
         this.productDataDao = productDataDao;
         this.categoryDataDao = categoryDataDao;
+        this.productCache = productCache;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
     }
 
-    @Transactional
+    /**
+     * 캐시에 있으면 트랜잭션을 시작하지 않고 돌려준다.
+     */
     public CategoryProduct getProductInCategory(Long categoryId, int page, int size) {
+        CategoryProduct cached = productCache.getCategoryPage(categoryId, page, size);
+        if (cached != null) return cached;
+        long generation = productCache.generation();
+        CategoryProduct categoryProduct = readOnly.execute(status -> loadProductInCategory(categoryId, page, size));
+        productCache.putCategoryPage(categoryId, page, size, categoryProduct, generation);
+        return categoryProduct;
+    }
+
+    private CategoryProduct loadProductInCategory(Long categoryId, int page, int size) {
         CategoryData category = categoryDataDao.findById(new CategoryId(categoryId))
                 .orElseThrow(() -> new NoCategoryException());
 
         Page<ProductData> productPage = productDataDao.findByCategoryIdsContains(category.getId(), Pageable.ofSize(size).withPage(page - 1));
-        return new CategoryProduct(category,
-                toSummary(productPage.getContent()),
+        return new CategoryProduct(new CategoryData(category.getId(), category.getName()),
+                List.copyOf(toSummary(productPage.getContent())),
                 page,
                 productPage.getSize(),
                 productPage.getTotalElements(),
@@ -50,6 +75,36 @@ public class ProductQueryService {
     }
 
     public Optional<ProductData> getProduct(String productId) {
-        return productDataDao.findById(new ProductId(productId));
+        ProductData cached = productCache.getProduct(productId);
+        if (cached != null) return Optional.of(cached);
+        long generation = productCache.generation();
+        Optional<ProductData> product = productDataDao.findById(new ProductId(productId)).map(ProductData::snapshot);
+        product.ifPresent(prod -> productCache.putProduct(prod, generation));
+        return product;
+    }
+
+    /**
+     * 캐시에 없는 상품만 이미지까지 한 번의 쿼리로 읽어서 상품 id 별로 돌려준다. 없는 상품은 결과에 없다.
+     */
+    public Map<String, ProductData> getProducts(Collection<String> productIds) {
+        if (productIds.isEmpty()) return Collections.emptyMap();
+        Map<String, ProductData> result = new HashMap<>();
+        List<ProductId> misses = new ArrayList<>();
+        for (String productId : new LinkedHashSet<>(productIds)) {
+            ProductData cached = productCache.getProduct(productId);
+            if (cached != null) {
+                result.put(productId, cached);
+            } else {
+                misses.add(new ProductId(productId));
+            }
+        }
+        if (misses.isEmpty()) return result;
+        long generation = productCache.generation();
+        for (ProductData loaded : productDataDao.findAllWithImagesByIdIn(misses)) {
+            ProductData prod = loaded.snapshot();
+            result.put(prod.getId().getId(), prod);
+            productCache.putProduct(prod, generation);
+        }
+        return result;
     }
 }
@@ -11,4 +11,11 @@ public abstract class Event {
         return timestamp;
     }
 
+    /**
+     * 같은 키의 이벤트는 같은 순서로 전달된다(주문번호, 회원 id 등). 키가 없으면 순서를 보장하지 않는다.
+     */
+    public String aggregateKey() {
+        return null;
+    }
+
 }
@@ -0,0 +1,13 @@
+package com.myshop.common.event;
+
+public enum EventAppendMode {
+    /**
+     * 비즈니스 트랜잭션 안에서 evententry 에 바로 저장한다. 커밋되면 이벤트도 반드시 남는다.
+     */
+    OUTBOX,
+    /**
+     * 커밋 후 버퍼에 넣고 별도 스레드가 모아서 저장한다. 호출 스레드는 저장을 기다리지 않지만,
+     * 버퍼에 남은 이벤트는 프로세스가 비정상 종료되면 잃을 수 있다.
+     */
+    AFTER_COMMIT
+}
@@ -1,19 +1,42 @@
 package com.myshop.common.event;
 
 import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.infra.BufferedEventAppender;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Component
 public class EventStoreHandler {
     private EventStore eventStore;
+    private BufferedEventAppender bufferedEventAppender;
+    private EventAppendMode appendMode;
 
-    public EventStoreHandler(EventStore eventStore) {
+    public EventStoreHandler(EventStore eventStore,
+                             BufferedEventAppender bufferedEventAppender,
+                             @Value("${eventstore.append-mode:AFTER_COMMIT}") EventAppendMode appendMode) {
         this.eventStore = eventStore;
+        this.bufferedEventAppender = bufferedEventAppender;
+        this.appendMode = appendMode;
     }
 
     @EventListener(Event.class)
     public void handle(Event event) {
-        eventStore.save(event);
+        if (appendMode == EventAppendMode.OUTBOX) {
+            eventStore.save(event);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bufferedEventAppender.append(event);
+                }
+            });
+        } else {
+            bufferedEventAppender.append(event);
+        }
     }
 }
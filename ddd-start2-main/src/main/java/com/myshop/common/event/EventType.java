@@ -0,0 +1,15 @@
+package com.myshop.common.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * evententry.type 에 클래스 이름 대신 저장할 짧은 타입 id. 한 번 저장한 id 는 바꾸지 않는다.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EventType {
+    String value();
+}
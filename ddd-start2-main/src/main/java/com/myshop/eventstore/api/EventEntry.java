@@ -1,28 +1,51 @@
 package com.myshop.eventstore.api;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 public class EventEntry {
     private Long id;
     private String type;
     private String contentType;
-    private String payload;
+    private byte[] payload;
+    private String aggregateKey;
     private long timestamp;
 
     public EventEntry(String type, String contentType, String payload) {
+        this(type, contentType, payload, null);
+    }
+
+    public EventEntry(String type, String contentType, String payload, String aggregateKey) {
+        this(type, contentType, toBytes(payload), aggregateKey);
+    }
+
+    public EventEntry(String type, String contentType, byte[] payload, String aggregateKey) {
         this.type = type;
         this.contentType = contentType;
         this.payload = payload;
+        this.aggregateKey = aggregateKey;
         this.timestamp = System.currentTimeMillis();
     }
 
     public EventEntry(Long id, String type, String contentType, String payload,
-                      long timestamp) {
+                      String aggregateKey, long timestamp) {
+        this(id, type, contentType, toBytes(payload), aggregateKey, timestamp);
+    }
+
+    public EventEntry(Long id, String type, String contentType, byte[] payload,
+                      String aggregateKey, long timestamp) {
         this.id = id;
         this.type = type;
         this.contentType = contentType;
         this.payload = payload;
+        this.aggregateKey = aggregateKey;
         this.timestamp = timestamp;
     }
 
+    private static byte[] toBytes(String payload) {
+        return payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+    }
+
     public Long getId() {
         return id;
     }
@@ -35,10 +58,31 @@ public class EventEntry {
         return contentType;
     }
 
+    /**
+     * 텍스트 payload(JSON)는 그대로, 바이너리 payload 는 Base64 로 준다. 바이너리인지는 contentType 으로 구분한다.
+     */
     public String getPayload() {
+        if (payload == null) {
+            return null;
+        }
+        if (hasTextPayload()) {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    public byte[] payloadBytes() {
         return payload;
     }
 
+    public boolean hasTextPayload() {
+        return contentType != null && contentType.startsWith("application/json");
+    }
+
+    public String getAggregateKey() {
+        return aggregateKey;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -5,5 +5,23 @@ import java.util.List;
 public interface EventStore {
     void save(Object event);
 
+    /**
+     * 여러 이벤트를 한 번에 저장한다. 저장 순서는 목록 순서와 같다.
+     */
+    void saveAll(List<?> events);
+
+    /**
+     * offset 만큼 건너뛰고 읽는다. offset 이 커질수록 느려지므로 순차 소비에는 {@link #getAfter(long, long)} 를 쓴다.
+     */
     List<EventEntry> get(long offset, long limit);
+
+    /**
+     * id 가 lastId 보다 큰 이벤트를 id 순으로 limit 개 읽는다. 처음부터 읽을 때는 lastId 로 0 을 준다.
+     */
+    List<EventEntry> getAfter(long lastId, long limit);
+
+    /**
+     * 읽을 수 있는 가장 최근 이벤트의 id. 이벤트가 없으면 0 이다.
+     */
+    long getLastId();
 }
@@ -0,0 +1,16 @@
+package com.myshop.eventstore.api;
+
+/**
+ * evententry 에 새 이벤트가 저장됐다는 알림. 트랜잭션 안에서 저장했다면 커밋 후에 처리해야 한다.
+ */
+public class EventsAppended {
+    private int count;
+
+    public EventsAppended(int count) {
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,17 @@
+package com.myshop.eventstore.api;
+
+/**
+ * 이벤트를 payload 바이트로 바꾼다. 어떤 codec 으로 저장했는지는 EventEntry.contentType 에 남는다.
+ */
+public interface PayloadCodec {
+    String contentType();
+
+    /**
+     * payload 가 UTF-8 텍스트면 false.
+     */
+    boolean isBinary();
+
+    byte[] encode(Object event);
+
+    <T> T decode(byte[] payload, Class<T> type);
+}
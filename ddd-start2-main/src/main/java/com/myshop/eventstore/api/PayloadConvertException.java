@@ -4,4 +4,8 @@ public class PayloadConvertException extends RuntimeException {
     public PayloadConvertException(Exception e) {
         super(e);
     }
+
+    public PayloadConvertException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,28 @@
+package com.myshop.eventstore.api;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 이벤트로 만드는 조회 모델. 같은 aggregate key 의 이벤트는 저장 순서대로 한 스레드에서 받지만,
+ * 키가 다른 이벤트 묶음은 동시에 apply 될 수 있다.
+ * checkpoint 저장 전에 멈추면 마지막 묶음을 다시 받으므로 apply 는 같은 이벤트를 두 번 받아도 결과가 같아야 한다.
+ */
+public interface Projection {
+    String name();
+
+    /**
+     * 받을 이벤트 타입. 비어 있으면 모든 이벤트를 받는다.
+     */
+    Set<String> eventTypes();
+
+    /**
+     * 처음부터 다시 만들기 전에 조회 모델을 비운다.
+     */
+    void reset();
+
+    /**
+     * 이벤트 묶음을 한 번에 반영한다. 이벤트마다 DB 를 왕복하지 말고 묶음 단위로 쓴다.
+     */
+    void apply(List<EventEntry> events);
+}
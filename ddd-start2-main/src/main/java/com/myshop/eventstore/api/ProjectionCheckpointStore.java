@@ -0,0 +1,9 @@
+package com.myshop.eventstore.api;
+
+/**
+ * projection 별로 마지막으로 반영한 이벤트의 id 를 보관한다. 아직 반영한 이벤트가 없으면 0 이다.
+ */
+public interface ProjectionCheckpointStore {
+    long get(String projection);
+    void update(String projection, long lastEventId);
+}
@@ -0,0 +1,123 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 이벤트를 크기가 정해진 큐에 모았다가 별도 스레드에서 직렬화하고 한 번의 다중 row insert 로 저장한다.
+ * 큐가 가득 차면 offerTimeoutMillis 만큼 기다리고, 그래도 자리가 없으면 호출 스레드가 저장 스레드와 같은 lock 을 잡고
+ * 큐에 남은 이벤트부터 자기 이벤트까지 저장한다(backpressure). 그래서 저장 순서는 append 순서와 같다.
+ * 저장에 실패하면 버리지 않고 backoff 하며 계속 다시 저장한다. 그동안 큐가 차서 호출 스레드가 기다리게 된다.
+ */
+@Component
+public class BufferedEventAppender {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private EventStore eventStore;
+    private BlockingQueue<Object> queue;
+    private int batchSize;
+    private long offerTimeoutMillis;
+    private Thread worker;
+    // 큐에서 꺼내 저장하는 동안 잡는다. 저장 스레드와 직접 저장하는 호출 스레드가 번갈아 순서대로 잡도록 fair 로 둔다.
+    private final ReentrantLock saveLock = new ReentrantLock(true);
+    private volatile boolean running = true;
+
+    public BufferedEventAppender(EventStore eventStore,
+                                 @Value("${eventstore.buffer.capacity:10000}") int capacity,
+                                 @Value("${eventstore.buffer.batch-size:500}") int batchSize,
+                                 @Value("${eventstore.buffer.offer-timeout-millis:100}") long offerTimeoutMillis) {
+        this.eventStore = eventStore;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.worker = new Thread(this::drainLoop, "event-appender");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void append(Object event) {
+        try {
+            if (running && queue.offer(event, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        saveLock.lock();
+        try {
+            // lock 을 잡은 동안 큐에 있는 이벤트는 모두 이 이벤트보다 먼저 들어왔다
+            if (running && queue.offer(event)) {
+                return;
+            }
+            List<Object> batch = new ArrayList<>(queue.size() + 1);
+            queue.drainTo(batch);
+            batch.add(event);
+            saveBatch(batch);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            saveLock.lock();
+            try {
+                Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                saveBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+                saveLock.unlock();
+            }
+        }
+    }
+
+    private void saveBatch(List<Object> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                eventStore.saveAll(batch);
+                return;
+            } catch (RuntimeException e) {
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+                logger.error("failed to append {} events (attempt {}), retrying in {} ms", batch.size(), attempt, backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    // 종료 중이다. 저장하지 못한 이벤트는 로그로 남긴다.
+                    Thread.currentThread().interrupt();
+                    logger.error("gave up appending {} events on interrupt: {}", batch.size(), batch);
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        if (worker.isAlive()) {
+            logger.error("event appender did not finish in time, {} events are not appended yet", queue.size());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.myshop.eventstore.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * evententry 를 segmentSize 개의 id 구간(파티션 p0, p1, ...)으로 나눠서, 모든 consumer 가 보낸 구간을
+ * 세그먼트 파일로 옮기고 테이블에서 지운다. 파티션 테이블이면 구간 파티션을 drop 하고, 아니면 구간을 나눠서 delete 한다.
+ * 보관 기준은 설정된 consumer 와 파티션(0 ~ forwarder.partitions - 1)의 event_offset 중 가장 작은 last_event_id 다.
+ * 없어진 파티션이나 더 이상 쓰지 않는 consumer 의 행은 보지 않고, 설정된 행이 하나라도 없으면 보관하지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "eventstore.storage", havingValue = "jdbc", matchIfMissing = true)
+public class EventArchiver {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private EventSegmentStore segmentStore;
+    private boolean enabled;
+    private long segmentSize;
+    private List<String> consumers;
+    private int partitions;
+    private Long lastCommitted;
+
+    public EventArchiver(JdbcTemplate jdbcTemplate,
+                         EventSegmentStore segmentStore,
+                         @Value("${eventstore.archive.enabled:false}") boolean enabled,
+                         @Value("${eventstore.archive.segment-size:1000000}") long segmentSize,
+                         @Value("${eventstore.archive.consumers:${forwarder.consumer:default}}") String[] consumers,
+                         @Value("${forwarder.partitions:4}") int partitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.segmentStore = segmentStore;
+        this.enabled = enabled;
+        this.segmentSize = segmentSize;
+        this.consumers = Collections.unmodifiableList(Arrays.asList(consumers));
+        this.partitions = partitions;
+    }
+
+    @Scheduled(initialDelayString = "${eventstore.archive.interval-millis:60000}",
+            fixedDelayString = "${eventstore.archive.interval-millis:60000}")
+    public void scheduledArchive() {
+        if (!enabled) return;
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            logger.error("event archive failed", e);
+        }
+    }
+
+    public synchronized void archive() {
+        addPartitions();
+        removeArchivedRows();
+
+        Long committed = committedBoundary();
+        if (committed == null) {
+            return;
+        }
+        warnIfStalled(committed);
+        long segmentNo = segmentStore.nextSegmentNo();
+        while (lastIdOf(segmentNo) <= committed) {
+            archiveSegment(segmentNo);
+            segmentNo++;
+        }
+    }
+
+    /**
+     * 설정된 consumer, 파티션의 offset 이 모두 있으면 가장 작은 last_event_id 를, 아니면 null 을 돌려준다.
+     */
+    private Long committedBoundary() {
+        List<Object> args = offsetArgs();
+        Long[] result = new Long[2];
+        jdbcTemplate.query(
+                "select count(*), min(last_event_id) from event_offset where " + offsetCondition(),
+                rs -> {
+                    result[0] = rs.getLong(1);
+                    result[1] = rs.getObject(2) == null ? null : rs.getLong(2);
+                }, args.toArray());
+        long expected = (long) consumers.size() * partitions;
+        if (result[0] < expected) {
+            logger.warn("event_offset has {} of {} offsets for consumers {} and {} partitions, skip archiving",
+                    result[0], expected, consumers, partitions);
+            return null;
+        }
+        return result[1];
+    }
+
+    /**
+     * 보관 기준이 지난 실행에서 움직이지 않았는데 그 뒤 이벤트가 있으면 기준을 잡고 있는 offset 을 남긴다.
+     */
+    private void warnIfStalled(long committed) {
+        Long previous = lastCommitted;
+        lastCommitted = committed;
+        if (previous == null || previous != committed) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from evententry", Long.class);
+        if (maxId == null || maxId <= committed) {
+            return;
+        }
+        jdbcTemplate.query(
+                "select consumer, partition_no from event_offset where " + offsetCondition() +
+                        " order by last_event_id asc limit 1",
+                rs -> {
+                    logger.warn("archive boundary {} has not moved since last run (max id {}), held by consumer {} partition {}",
+                            committed, maxId, rs.getString(1), rs.getInt(2));
+                }, offsetArgs().toArray());
+    }
+
+    private String offsetCondition() {
+        return "consumer in (" + String.join(", ", Collections.nCopies(consumers.size(), "?")) + ") and partition_no < ?";
+    }
+
+    private List<Object> offsetArgs() {
+        List<Object> args = new ArrayList<>(consumers);
+        args.add(partitions);
+        return args;
+    }
+
+    private void archiveSegment(long segmentNo) {
+        long firstId = firstIdOf(segmentNo);
+        long lastId = lastIdOf(segmentNo);
+        EventSegmentStore.SegmentWriter writer = segmentStore.newWriter(segmentNo, firstId, lastId);
+        try {
+            // MySQL 은 fetch size 가 Integer.MIN_VALUE 일 때 결과를 한 행씩 스트리밍한다
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "select * from evententry where id between ? and ? order by id asc",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);
+                ps.setLong(1, firstId);
+                ps.setLong(2, lastId);
+                return ps;
+            }, rs -> {
+                writer.write(JdbcEventStore.EVENT_ENTRY_ROW_MAPPER.mapRow(rs, 0));
+            });
+        } catch (RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+        EventSegment segment = writer.commit();
+        logger.info("archived events {} ~ {} ({} events) to {}",
+                firstId, lastId, segment.getCount(), segment.getFileName());
+        removeRows(segment);
+    }
+
+    /**
+     * 세그먼트 등록 뒤 행을 지우기 전에 멈췄으면 남은 행을 지운다.
+     */
+    private void removeArchivedRows() {
+        Long minId = jdbcTemplate.queryForObject("select min(id) from evententry", Long.class);
+        if (minId == null) {
+            return;
+        }
+        for (EventSegment segment : segmentStore.getSegments()) {
+            if (segment.getLastId() >= minId) {
+                removeRows(segment);
+            }
+        }
+    }
+
+    private void removeRows(EventSegment segment) {
+        String partition = partitionName(segment.getSegmentNo());
+        if (String.valueOf(segment.getLastId() + 1).equals(partitionBounds().get(partition))) {
+            jdbcTemplate.execute("alter table evententry drop partition " + partition);
+            return;
+        }
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                    "delete from evententry where id between ? and ? limit " + DELETE_BATCH_SIZE,
+                    segment.getFirstId(), segment.getLastId());
+        } while (deleted == DELETE_BATCH_SIZE);
+    }
+
+    /**
+     * 파티션 테이블이면 가장 큰 id 가 들어갈 구간 다음 구간까지 파티션을 미리 만든다.
+     */
+    private void addPartitions() {
+        Map<String, String> partitions = partitionBounds();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        if (!partitions.containsKey("pmax")) {
+            logger.warn("evententry has no pmax partition, skip adding partitions");
+            return;
+        }
+        for (Map.Entry<String, String> partition : partitions.entrySet()) {
+            String name = partition.getKey();
+            if (!name.equals("pmax")
+                    && !String.valueOf(lastIdOf(Long.parseLong(name.substring(1))) + 1).equals(partition.getValue())) {
+                logger.warn("evententry partition {} does not match segment size {}, skip adding partitions",
+                        name, segmentSize);
+                return;
+            }
+        }
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from evententry", Long.class);
+        long required = maxId / segmentSize + 1;
+        for (long segmentNo = 0; segmentNo <= required; segmentNo++) {
+            if (!partitions.containsKey(partitionName(segmentNo)) && segmentNo >= segmentStore.nextSegmentNo()) {
+                jdbcTemplate.execute("alter table evententry reorganize partition pmax into (" +
+                        "partition " + partitionName(segmentNo) + " values less than (" + (lastIdOf(segmentNo) + 1) + "), " +
+                        "partition pmax values less than maxvalue)");
+            }
+        }
+    }
+
+    /**
+     * 파티션 이름과 상한(values less than). 파티션 구간이 segmentSize 와 다르면 상한이 맞지 않아서 drop 하지 않는다.
+     */
+    private Map<String, String> partitionBounds() {
+        Map<String, String> bounds = new HashMap<>();
+        jdbcTemplate.query(
+                "select partition_name, partition_description from information_schema.partitions " +
+                        "where table_schema = database() and table_name = 'evententry' and partition_name is not null",
+                rs -> {
+                    bounds.put(rs.getString("partition_name"), rs.getString("partition_description"));
+                });
+        return bounds;
+    }
+
+    private String partitionName(long segmentNo) {
+        return "p" + segmentNo;
+    }
+
+    private long firstIdOf(long segmentNo) {
+        return segmentNo * segmentSize + 1;
+    }
+
+    private long lastIdOf(long segmentNo) {
+        return (segmentNo + 1) * segmentSize;
+    }
+}
@@ -0,0 +1,40 @@
+package com.myshop.eventstore.infra;
+
+/**
+ * id 가 firstId 부터 lastId 까지인 이벤트를 보관한 파일. 구간 안에 빠진 id 가 있을 수 있어서 건수는 따로 둔다.
+ */
+public class EventSegment {
+    private long segmentNo;
+    private long firstId;
+    private long lastId;
+    private long count;
+    private String fileName;
+
+    public EventSegment(long segmentNo, long firstId, long lastId, long count, String fileName) {
+        this.segmentNo = segmentNo;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.count = count;
+        this.fileName = fileName;
+    }
+
+    public long getSegmentNo() {
+        return segmentNo;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
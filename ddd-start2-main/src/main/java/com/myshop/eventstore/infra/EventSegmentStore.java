@@ -0,0 +1,282 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 보관(archive)된 이벤트 구간을 로컬 디스크의 gzip 세그먼트 파일로 저장하고 읽는다.
+ * 세그먼트 목록은 event_segment 테이블에 남기고, 파일은 처음부터 순서대로 풀면서 읽으므로 세그먼트 전체를 메모리에 올리지 않는다.
+ * 페이지를 이어서 읽을 때 처음부터 다시 풀지 않도록, 읽다 멈춘 스트림을 MAX_CURSORS 개까지 열어 두고 다음 읽기에서 이어 쓴다.
+ * 세그먼트 목록은 시작할 때 한 번 읽고 파일은 로컬 디스크에 있으므로 한 노드에서만 쓸 수 있다.
+ */
+@Component
+@ConditionalOnProperty(name = "eventstore.storage", havingValue = "jdbc", matchIfMissing = true)
+public class EventSegmentStore {
+    private static final int MAX_CURSORS = 16;
+
+    private JdbcTemplate jdbcTemplate;
+    private Path directory;
+    private volatile List<EventSegment> segments = Collections.emptyList();
+    private final Deque<Cursor> cursors = new ArrayDeque<>();
+
+    public EventSegmentStore(JdbcTemplate jdbcTemplate,
+                             @Value("${eventstore.archive.directory:./event-archive}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+    }
+
+    @PostConstruct
+    public void load() {
+        segments = Collections.unmodifiableList(jdbcTemplate.query(
+                "select * from event_segment order by segment_no asc",
+                (rs, rowNum) -> new EventSegment(
+                        rs.getLong("segment_no"),
+                        rs.getLong("first_id"),
+                        rs.getLong("last_id"),
+                        rs.getLong("event_count"),
+                        rs.getString("file_name"))));
+    }
+
+    /**
+     * 보관된 세그먼트를 segmentNo 순으로 준다. 읽는 동안 세그먼트가 추가돼도 받은 목록은 바뀌지 않는다.
+     */
+    public List<EventSegment> getSegments() {
+        return segments;
+    }
+
+    public long nextSegmentNo() {
+        List<EventSegment> current = segments;
+        return current.isEmpty() ? 0 : current.get(current.size() - 1).getSegmentNo() + 1;
+    }
+
+    public SegmentWriter newWriter(long segmentNo, long firstId, long lastId) {
+        try {
+            Files.createDirectories(directory);
+            return new SegmentWriter(segmentNo, firstId, lastId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 세그먼트에서 앞의 skip 건을 건너뛰고 id 가 afterId 보다 큰 이벤트를 limit 개까지 읽는다.
+     */
+    public List<EventEntry> read(EventSegment segment, long skip, long afterId, long limit) {
+        List<EventEntry> result = new ArrayList<>();
+        Cursor cursor = takeCursor(segment, skip, afterId);
+        try {
+            if (cursor == null) {
+                cursor = new Cursor(segment.getSegmentNo(), new DataInputStream(new BufferedInputStream(
+                        new GZIPInputStream(Files.newInputStream(directory.resolve(segment.getFileName())), 64 * 1024))));
+            }
+            while (result.size() < limit) {
+                EventEntry entry = readEntry(cursor.in);
+                if (entry == null) {
+                    cursor.close();
+                    return result;
+                }
+                long position = cursor.position++;
+                cursor.lastId = entry.getId();
+                if (position >= skip && entry.getId() > afterId) {
+                    result.add(entry);
+                }
+            }
+            returnCursor(cursor);
+            return result;
+        } catch (IOException e) {
+            if (cursor != null) cursor.close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            if (cursor != null) cursor.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 이미 읽은 이벤트가 모두 이번 읽기에서 건너뛸 이벤트인 cursor 중 가장 많이 읽은 것을 꺼낸다.
+     */
+    private synchronized Cursor takeCursor(EventSegment segment, long skip, long afterId) {
+        Cursor best = null;
+        for (Cursor cursor : cursors) {
+            if (cursor.segmentNo == segment.getSegmentNo()
+                    && (cursor.position <= skip || cursor.lastId <= afterId)
+                    && (best == null || cursor.position > best.position)) {
+                best = cursor;
+            }
+        }
+        if (best != null) {
+            cursors.remove(best);
+        }
+        return best;
+    }
+
+    private void returnCursor(Cursor cursor) {
+        Cursor evicted = null;
+        synchronized (this) {
+            cursors.addFirst(cursor);
+            if (cursors.size() > MAX_CURSORS) {
+                evicted = cursors.removeLast();
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    synchronized int openCursors() {
+        return cursors.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        List<Cursor> opened;
+        synchronized (this) {
+            opened = new ArrayList<>(cursors);
+            cursors.clear();
+        }
+        opened.forEach(Cursor::close);
+    }
+
+    private EventEntry readEntry(DataInputStream in) throws IOException {
+        long id;
+        try {
+            id = in.readLong();
+        } catch (EOFException e) {
+            return null;
+        }
+        String type = in.readUTF();
+        String contentType = in.readUTF();
+        String aggregateKey = in.readBoolean() ? in.readUTF() : null;
+        long timestamp = in.readLong();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return new EventEntry(id, type, contentType, payload, aggregateKey, timestamp);
+    }
+
+    private synchronized void register(EventSegment segment) {
+        jdbcTemplate.update(
+                "insert into event_segment (segment_no, first_id, last_id, event_count, file_name, archived_time) " +
+                        "values (?, ?, ?, ?, ?, now())",
+                segment.getSegmentNo(), segment.getFirstId(), segment.getLastId(),
+                segment.getCount(), segment.getFileName());
+        List<EventSegment> next = new ArrayList<>(segments);
+        next.add(segment);
+        segments = Collections.unmodifiableList(next);
+    }
+
+    private static class Cursor {
+        private final long segmentNo;
+        private final DataInputStream in;
+        // 다음에 읽을 이벤트의 세그먼트 안 순번과 마지막으로 읽은 이벤트 id
+        private long position;
+        private long lastId;
+
+        Cursor(long segmentNo, DataInputStream in) {
+            this.segmentNo = segmentNo;
+            this.in = in;
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // 읽기만 한 스트림이라 닫다가 실패해도 잃는 것이 없다
+            }
+        }
+    }
+
+    /**
+     * 임시 파일에 쓰고 commit 할 때 fsync 한 뒤 이름을 바꾼다. commit 전에는 읽는 쪽에서 보이지 않는다.
+     */
+    public class SegmentWriter {
+        private final long segmentNo;
+        private final long firstId;
+        private final long lastId;
+        private final String fileName;
+        private final Path tempFile;
+        private final FileOutputStream fileOut;
+        private final GZIPOutputStream gzipOut;
+        private final DataOutputStream out;
+        private long count;
+
+        private SegmentWriter(long segmentNo, long firstId, long lastId) throws IOException {
+            this.segmentNo = segmentNo;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.fileName = String.format("events-%012d-%012d.seg.gz", firstId, lastId);
+            this.tempFile = directory.resolve(fileName + ".tmp");
+            this.fileOut = new FileOutputStream(tempFile.toFile());
+            this.gzipOut = new GZIPOutputStream(fileOut, 64 * 1024);
+            this.out = new DataOutputStream(new BufferedOutputStream(gzipOut));
+        }
+
+        public void write(EventEntry entry) {
+            try {
+                out.writeLong(entry.getId());
+                out.writeUTF(entry.getType());
+                out.writeUTF(entry.getContentType());
+                out.writeBoolean(entry.getAggregateKey() != null);
+                if (entry.getAggregateKey() != null) {
+                    out.writeUTF(entry.getAggregateKey());
+                }
+                out.writeLong(entry.getTimestamp());
+                byte[] payload = entry.payloadBytes();
+                out.writeInt(payload.length);
+                out.write(payload);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public EventSegment commit() {
+            try {
+                out.flush();
+                // GZIP trailer 까지 쓰고 디스크에 내린 뒤에 보이게 한다
+                gzipOut.finish();
+                fileOut.getFD().sync();
+                out.close();
+                Files.move(tempFile, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            EventSegment segment = new EventSegment(segmentNo, firstId, lastId, count, fileName);
+            register(segment);
+            return segment;
+        }
+
+        public void abort() {
+            try {
+                out.close();
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                // 임시 파일은 다음 시도에서 덮어쓴다
+            }
+        }
+    }
+}
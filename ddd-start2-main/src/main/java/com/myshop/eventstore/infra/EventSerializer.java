@@ -0,0 +1,85 @@
+package com.myshop.eventstore.infra;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.myshop.common.event.Event;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.PayloadCodec;
+import com.myshop.eventstore.api.PayloadConvertException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 이벤트를 EventEntry 로 바꾸고 되돌린다. 저장할 때는 eventstore.codec 으로 정한 codec 을 쓰고,
+ * 읽을 때는 행의 contentType 에 맞는 codec 을 고르므로 예전 JSON 행도 그대로 읽는다.
+ * 저장 포맷은 내부 사항이라서 API 와 sender 로 내보낼 때는 {@link #toJson(EventEntry)} 로 JSON 으로 바꾼다.
+ */
+@Component
+public class EventSerializer {
+    private EventTypeRegistry typeRegistry;
+    private Map<String, PayloadCodec> codecs = new ConcurrentHashMap<>();
+    private PayloadCodec writeCodec;
+
+    public EventSerializer(EventTypeRegistry typeRegistry,
+                           ObjectMapper objectMapper,
+                           Jackson2ObjectMapperBuilder objectMapperBuilder,
+                           @Value("${eventstore.codec:json}") String codecName) {
+        this.typeRegistry = typeRegistry;
+        addCodec(new JacksonPayloadCodec(JacksonPayloadCodec.JSON, false, objectMapper));
+        addCodec(new JacksonPayloadCodec(JacksonPayloadCodec.SMILE, true,
+                objectMapperBuilder.factory(new SmileFactory()).build()));
+        this.writeCodec = codecOf("json".equalsIgnoreCase(codecName) ? JacksonPayloadCodec.JSON : JacksonPayloadCodec.SMILE);
+    }
+
+    private void addCodec(PayloadCodec codec) {
+        codecs.put(codec.contentType(), codec);
+    }
+
+    public EventEntry toEntry(Object event) {
+        String aggregateKey = event instanceof Event ? ((Event) event).aggregateKey() : null;
+        return new EventEntry(typeRegistry.idOf(event.getClass()),
+                writeCodec.contentType(), writeCodec.encode(event), aggregateKey);
+    }
+
+    public Object fromEntry(EventEntry entry) {
+        return fromEntry(entry, typeRegistry.classOf(entry.getType()));
+    }
+
+    /**
+     * 이벤트 클래스 대신 JsonNode 같은 범용 타입으로 읽을 때 쓴다.
+     */
+    public <T> T fromEntry(EventEntry entry, Class<T> type) {
+        return codecOf(entry.getContentType()).decode(entry.payloadBytes(), type);
+    }
+
+    /**
+     * 바이너리 payload 를 같은 내용의 JSON payload 로 바꾼 EventEntry 를 준다. 이미 JSON 이면 그대로 준다.
+     */
+    public EventEntry toJson(EventEntry entry) {
+        if (entry.payloadBytes() == null || entry.hasTextPayload()) {
+            return entry;
+        }
+        PayloadCodec json = codecOf(JacksonPayloadCodec.JSON);
+        return new EventEntry(entry.getId(), entry.getType(), json.contentType(),
+                json.encode(fromEntry(entry, JsonNode.class)), entry.getAggregateKey(), entry.getTimestamp());
+    }
+
+    public List<EventEntry> toJson(List<EventEntry> entries) {
+        return entries.stream().map(this::toJson).collect(Collectors.toList());
+    }
+
+    private PayloadCodec codecOf(String contentType) {
+        PayloadCodec codec = codecs.get(contentType);
+        if (codec == null) {
+            throw new PayloadConvertException("unsupported content type " + contentType);
+        }
+        return codec;
+    }
+}
@@ -0,0 +1,219 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.api.EventsAppended;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 커서 뒤에 새 이벤트가 생길 때까지 구독자를 대기시킨다.
+ * 구독할 때 한 번 조회하고, 대기 중인 구독자는 따로 조회하지 않는다. 이벤트 저장 알림이 오거나 pollInterval 마다
+ * (다른 노드가 저장한 이벤트는 알림이 오지 않는다) 모든 구독자 몫을 한 번의 조회로 가져와 나눠준다.
+ * listener 호출은 구독자마다 delivery 스레드에서 하므로 느린 구독자가 다른 구독자 전달을 막지 않는다.
+ * listener 호출 중인 구독자는 조회 시작 위치에서 빼고, 호출이 끝나면 자기 커서부터 다시 dispatch 한다.
+ */
+@Component
+public class EventTail {
+    private static final Logger logger = LoggerFactory.getLogger(EventTail.class);
+
+    private static final long MAX_FETCH_SIZE = 1000;
+
+    private final EventStore eventStore;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(daemon("event-tail-dispatcher"));
+    private final ExecutorService delivery = Executors.newCachedThreadPool(daemon("event-tail-delivery"));
+
+    public EventTail(EventStore eventStore) {
+        this.eventStore = eventStore;
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * after 뒤의 이벤트를 listener 에 전달한다. once 면 한 번 전달한 뒤 구독을 끝낸다.
+     */
+    public Subscription subscribe(long after, long limit, boolean once, Consumer<List<EventEntry>> listener) {
+        if (limit <= 0 || limit > MAX_FETCH_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_FETCH_SIZE + ": " + limit);
+        }
+        Subscription subscription = new Subscription(after, limit, once, listener);
+        // 조회 전에 먼저 등록해야 조회와 알림 사이에 저장된 이벤트를 놓치지 않는다.
+        subscriptions.add(subscription);
+        subscription.deliver(eventStore.getAfter(after, limit));
+        return subscription;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppended(EventsAppended appended) {
+        requestDispatch();
+    }
+
+    @Scheduled(initialDelayString = "${eventstore.tail.poll-interval-millis:1000}",
+            fixedDelayString = "${eventstore.tail.poll-interval-millis:1000}")
+    public void pollStore() {
+        requestDispatch();
+    }
+
+    private void requestDispatch() {
+        // 저장이 몰려도 대기 중인 dispatch 가 있으면 새로 예약하지 않는다.
+        if (subscriptions.isEmpty() || !dispatchRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(this::dispatch);
+        } catch (RuntimeException e) {
+            dispatchRequested.set(false);
+            logger.warn("event tail dispatch rejected", e);
+        }
+    }
+
+    private void dispatch() {
+        dispatchRequested.set(false);
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long from = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.isIdle()) {
+                from = Math.min(from, subscription.cursor);
+            }
+        }
+        if (from == Long.MAX_VALUE) {
+            // 모두 listener 호출 중이다. 호출이 끝나면 각자 다시 dispatch 한다.
+            subscriptions.forEach(Subscription::markMissed);
+            return;
+        }
+        try {
+            List<EventEntry> entries = eventStore.getAfter(from, MAX_FETCH_SIZE);
+            for (Subscription subscription : subscriptions) {
+                subscription.deliver(entries);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("event tail dispatch failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        delivery.shutdownNow();
+    }
+
+    public class Subscription {
+        private volatile long cursor;
+        private final long limit;
+        private final boolean once;
+        private final Consumer<List<EventEntry>> listener;
+        private boolean closed;
+        // listener 호출 중이면 다음 전달은 호출이 끝난 뒤 다시 dispatch 해서 보낸다
+        private volatile boolean sending;
+        private boolean missed;
+
+        private Subscription(long cursor, long limit, boolean once, Consumer<List<EventEntry>> listener) {
+            this.cursor = cursor;
+            this.limit = limit;
+            this.once = once;
+            this.listener = listener;
+        }
+
+        private boolean isIdle() {
+            return !sending;
+        }
+
+        private synchronized void markMissed() {
+            if (sending) {
+                missed = true;
+            }
+        }
+
+        private void deliver(List<EventEntry> entries) {
+            List<EventEntry> pending;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (sending) {
+                    missed = missed || (!entries.isEmpty() && entries.get(entries.size() - 1).getId() > cursor);
+                    return;
+                }
+                List<EventEntry> unseen = entries.stream()
+                        .filter(entry -> entry.getId() > cursor)
+                        .collect(Collectors.toList());
+                if (unseen.isEmpty()) {
+                    return;
+                }
+                pending = unseen.size() > limit ? unseen.subList(0, (int) limit) : unseen;
+                cursor = pending.get(pending.size() - 1).getId();
+                sending = true;
+                // 한 번에 다 못 받았으면 listener 호출이 끝난 뒤 이어서 dispatch 한다
+                missed = pending.size() < unseen.size() || entries.size() == MAX_FETCH_SIZE;
+            }
+            try {
+                delivery.execute(() -> send(pending));
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void send(List<EventEntry> pending) {
+            if (once) {
+                close();
+            }
+            try {
+                listener.accept(Collections.unmodifiableList(pending));
+            } catch (RuntimeException e) {
+                logger.debug("event tail listener failed, closing subscription", e);
+                close();
+                return;
+            }
+            if (once) {
+                return;
+            }
+            boolean dispatchAgain;
+            synchronized (this) {
+                sending = false;
+                dispatchAgain = missed;
+                missed = false;
+            }
+            if (dispatchAgain) {
+                requestDispatch();
+            }
+        }
+
+        public synchronized void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+import com.myshop.eventstore.api.PayloadConvertException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link EventType} 이 붙은 이벤트 클래스와 짧은 타입 id 를 연결한다.
+ * id 가 없는 클래스와 예전에 저장된 행은 클래스 이름을 타입으로 쓴다.
+ * 타입은 DB 에서 읽은 값이므로 클래스 이름은 com.myshop 아래의 {@link Event} 하위 클래스만 받는다.
+ */
+@Component
+public class EventTypeRegistry {
+    private static final String BASE_PACKAGE = "com.myshop";
+
+    private Map<String, Class<?>> classesById = new ConcurrentHashMap<>();
+    private Map<Class<?>, String> idsByClass = new ConcurrentHashMap<>();
+
+    public EventTypeRegistry() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(EventType.class));
+        for (BeanDefinition candidate : scanner.findCandidateComponents(BASE_PACKAGE)) {
+            register(ClassUtils.resolveClassName(candidate.getBeanClassName(), getClass().getClassLoader()));
+        }
+    }
+
+    void register(Class<?> type) {
+        String id = type.getAnnotation(EventType.class).value();
+        Class<?> registered = classesById.putIfAbsent(id, type);
+        if (registered != null && registered != type) {
+            throw new IllegalStateException("duplicate event type id " + id + " : " + registered + ", " + type);
+        }
+        idsByClass.put(type, id);
+    }
+
+    public String idOf(Class<?> type) {
+        String id = idsByClass.get(type);
+        return id != null ? id : type.getName();
+    }
+
+    public Class<?> classOf(String id) {
+        Class<?> type = classesById.get(id);
+        if (type != null) {
+            return type;
+        }
+        if (!id.startsWith(BASE_PACKAGE + ".")) {
+            throw new PayloadConvertException("unknown event type " + id);
+        }
+        try {
+            type = ClassUtils.forName(id, getClass().getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new PayloadConvertException("unknown event type " + id);
+        }
+        if (!Event.class.isAssignableFrom(type)) {
+            throw new PayloadConvertException("not an event type " + id);
+        }
+        return type;
+    }
+}
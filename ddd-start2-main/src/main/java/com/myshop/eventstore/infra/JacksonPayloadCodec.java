@@ -0,0 +1,53 @@
+package com.myshop.eventstore.infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.eventstore.api.PayloadCodec;
+import com.myshop.eventstore.api.PayloadConvertException;
+
+import java.io.IOException;
+
+/**
+ * ObjectMapper 의 포맷(JSON, Smile 등)으로 payload 를 만든다.
+ */
+public class JacksonPayloadCodec implements PayloadCodec {
+    public static final String JSON = "application/json";
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private String contentType;
+    private boolean binary;
+    private ObjectMapper objectMapper;
+
+    public JacksonPayloadCodec(String contentType, boolean binary, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.binary = binary;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isBinary() {
+        return binary;
+    }
+
+    @Override
+    public byte[] encode(Object event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new PayloadConvertException(e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, Class<T> type) {
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (IOException e) {
+            throw new PayloadConvertException(e);
+        }
+    }
+}
@@ -1,66 +1,154 @@
 package com.myshop.eventstore.infra;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.myshop.eventstore.api.EventEntry;
 import com.myshop.eventstore.api.EventStore;
-import com.myshop.eventstore.api.PayloadConvertException;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.myshop.eventstore.api.EventsAppended;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
+@ConditionalOnProperty(name = "eventstore.storage", havingValue = "jdbc", matchIfMissing = true)
 public class JdbcEventStore implements EventStore {
-    private ObjectMapper objectMapper;
+    private EventSerializer eventSerializer;
     private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private EventSegmentStore segmentStore;
 
-    public JdbcEventStore(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
-        this.objectMapper = objectMapper;
+    static final RowMapper<EventEntry> EVENT_ENTRY_ROW_MAPPER = (rs, rowNum) ->
+            new EventEntry(
+                    rs.getLong("id"),
+                    rs.getString("type"),
+                    rs.getString("content_type"),
+                    rs.getBytes("payload"),
+                    rs.getString("aggregate_key"),
+                    rs.getTimestamp("timestamp").getTime());
+
+    public JdbcEventStore(EventSerializer eventSerializer, JdbcTemplate jdbcTemplate,
+                          ApplicationEventPublisher eventPublisher, EventSegmentStore segmentStore) {
+        this.eventSerializer = eventSerializer;
         this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.segmentStore = segmentStore;
     }
 
     @Override
     public void save(Object event) {
-        EventEntry entry = new EventEntry(event.getClass().getName(),
-                "application/json", toJson(event));
+        EventEntry entry = eventSerializer.toEntry(event);
         jdbcTemplate.update(
                 "insert into evententry " +
-                        "(type, content_type, payload, timestamp) " +
-                        "values (?, ?, ?, ?)",
+                        "(type, content_type, payload, aggregate_key, timestamp) " +
+                        "values (?, ?, ?, ?, ?)",
                 ps -> {
                     ps.setString(1, entry.getType());
                     ps.setString(2, entry.getContentType());
-                    ps.setString(3, entry.getPayload());
-                    ps.setTimestamp(4, new Timestamp(entry.getTimestamp()));
+                    ps.setBytes(3, entry.payloadBytes());
+                    ps.setString(4, entry.getAggregateKey());
+                    ps.setTimestamp(5, new Timestamp(entry.getTimestamp()));
                 });
+        eventPublisher.publishEvent(new EventsAppended(1));
     }
 
-    private String toJson(Object event) {
-        try {
-            return objectMapper.writeValueAsString(event);
-        } catch (JsonProcessingException e) {
-            throw new PayloadConvertException(e);
-        }
+    @Override
+    public void saveAll(List<?> events) {
+        if (events.isEmpty()) return;
+        List<EventEntry> entries = events.stream().map(eventSerializer::toEntry).collect(Collectors.toList());
+        jdbcTemplate.update(
+                "insert into evententry " +
+                        "(type, content_type, payload, aggregate_key, timestamp) " +
+                        "values " + String.join(", ", Collections.nCopies(entries.size(), "(?, ?, ?, ?, ?)")),
+                ps -> {
+                    int index = 1;
+                    for (EventEntry entry : entries) {
+                        ps.setString(index++, entry.getType());
+                        ps.setString(index++, entry.getContentType());
+                        ps.setBytes(index++, entry.payloadBytes());
+                        ps.setString(index++, entry.getAggregateKey());
+                        ps.setTimestamp(index++, new Timestamp(entry.getTimestamp()));
+                    }
+                });
+        eventPublisher.publishEvent(new EventsAppended(entries.size()));
     }
 
+    /**
+     * 보관된 세그먼트를 먼저 읽고 모자란 만큼 테이블에서 읽는다. 세그먼트로 옮긴 뒤 아직 지우지 않은 행은
+     * 보관된 마지막 id 이하라서 테이블 조회에서 빠진다.
+     */
     @Override
     public List<EventEntry> get(long offset, long limit) {
-        return jdbcTemplate.query(
-                "select * from evententry order by id asc limit ?, ?",
+        List<EventSegment> segments = segmentStore.getSegments();
+        List<EventEntry> result = new ArrayList<>();
+        long remainingOffset = offset;
+        for (EventSegment segment : segments) {
+            if (result.size() >= limit) {
+                return result;
+            }
+            if (remainingOffset >= segment.getCount()) {
+                remainingOffset -= segment.getCount();
+                continue;
+            }
+            result.addAll(segmentStore.read(segment, remainingOffset, 0, limit - result.size()));
+            remainingOffset = 0;
+        }
+        if (result.size() >= limit) {
+            return result;
+        }
+        long archivedId = lastArchivedId(segments);
+        long tableOffset = remainingOffset;
+        long tableLimit = limit - result.size();
+        result.addAll(jdbcTemplate.query(
+                "select * from evententry where id > ? order by id asc limit ?, ?",
                 ps -> {
-                    ps.setLong(1, offset);
-                    ps.setLong(2, limit);
+                    ps.setLong(1, archivedId);
+                    ps.setLong(2, tableOffset);
+                    ps.setLong(3, tableLimit);
                 },
-                (rs, rowNum) -> {
-                    return new EventEntry(
-                            rs.getLong("id"),
-                            rs.getString("type"),
-                            rs.getString("content_type"),
-                            rs.getString("payload"),
-                            rs.getTimestamp("timestamp").getTime());
-                });
+                EVENT_ENTRY_ROW_MAPPER));
+        return result;
+    }
+
+    @Override
+    public List<EventEntry> getAfter(long lastId, long limit) {
+        List<EventSegment> segments = segmentStore.getSegments();
+        List<EventEntry> result = new ArrayList<>();
+        for (EventSegment segment : segments) {
+            if (result.size() >= limit) {
+                return result;
+            }
+            if (segment.getLastId() > lastId) {
+                result.addAll(segmentStore.read(segment, 0, lastId, limit - result.size()));
+            }
+        }
+        if (result.size() >= limit) {
+            return result;
+        }
+        long afterId = Math.max(lastId, lastArchivedId(segments));
+        long tableLimit = limit - result.size();
+        result.addAll(jdbcTemplate.query(
+                "select * from evententry where id > ? order by id asc limit ?",
+                ps -> {
+                    ps.setLong(1, afterId);
+                    ps.setLong(2, tableLimit);
+                },
+                EVENT_ENTRY_ROW_MAPPER));
+        return result;
+    }
+
+    @Override
+    public long getLastId() {
+        Long tableLastId = jdbcTemplate.queryForObject("select max(id) from evententry", Long.class);
+        return Math.max(tableLastId == null ? 0 : tableLastId, lastArchivedId(segmentStore.getSegments()));
+    }
+
+    private long lastArchivedId(List<EventSegment> segments) {
+        return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getLastId();
     }
-}
\ No newline at end of file
+}
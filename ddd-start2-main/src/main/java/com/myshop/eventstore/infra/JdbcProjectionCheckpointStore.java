@@ -0,0 +1,31 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.ProjectionCheckpointStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class JdbcProjectionCheckpointStore implements ProjectionCheckpointStore {
+    private JdbcTemplate jdbcTemplate;
+
+    public JdbcProjectionCheckpointStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long get(String projection) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select last_event_id from projection_checkpoint where name = ?", Long.class, projection);
+        return ids.isEmpty() ? 0 : ids.get(0);
+    }
+
+    @Override
+    public void update(String projection, long lastEventId) {
+        jdbcTemplate.update(
+                "insert into projection_checkpoint (name, last_event_id, updated_time) values (?, ?, now()) " +
+                        "on duplicate key update last_event_id = values(last_event_id), updated_time = now()",
+                projection, lastEventId);
+    }
+}
@@ -0,0 +1,177 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.api.Projection;
+import com.myshop.eventstore.api.ProjectionCheckpointStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 이벤트 저장소를 chunkSize 건씩 읽어서 등록된 projection 에 반영한다.
+ * 한 chunk 는 aggregate key 해시로 나눠서 병렬로 apply 하고, 모두 끝나면 checkpoint 를 저장한다. key 가 없는 이벤트는 한 파티션에 모은다.
+ * 다음 chunk 읽기는 현재 chunk 를 apply 하는 동안 미리 해 둔다.
+ */
+@Component
+public class ProjectionReplayer {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private EventStore eventStore;
+    private ProjectionCheckpointStore checkpointStore;
+    private Map<String, Projection> projections;
+    private int chunkSize;
+    private int parallelism;
+    private ExecutorService reader;
+    private ExecutorService workers;
+
+    public ProjectionReplayer(EventStore eventStore,
+                              ProjectionCheckpointStore checkpointStore,
+                              List<Projection> projections,
+                              @Value("${projection.replay.chunk-size:10000}") int chunkSize,
+                              @Value("${projection.replay.parallelism:8}") int parallelism) {
+        this.eventStore = eventStore;
+        this.checkpointStore = checkpointStore;
+        this.projections = projections.stream().collect(Collectors.toMap(Projection::name, Function.identity()));
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.reader = Executors.newSingleThreadExecutor(daemon("projection-reader"));
+        this.workers = Executors.newFixedThreadPool(parallelism, daemon("projection-worker"));
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 조회 모델을 비우고 처음부터 다시 만든다. 반영한 이벤트 수를 돌려준다.
+     */
+    public long rebuild(String name) {
+        Projection projection = projectionOf(name);
+        synchronized (projection) {
+            projection.reset();
+            checkpointStore.update(name, 0);
+            return replay(projection);
+        }
+    }
+
+    /**
+     * 마지막 checkpoint 이후의 이벤트만 반영한다.
+     */
+    public long catchUp(String name) {
+        Projection projection = projectionOf(name);
+        synchronized (projection) {
+            return replay(projection);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${projection.catch-up-interval-millis:5000}",
+            fixedDelayString = "${projection.catch-up-interval-millis:5000}")
+    public void catchUpAll() {
+        for (String name : projections.keySet()) {
+            try {
+                catchUp(name);
+            } catch (RuntimeException e) {
+                logger.error("projection {} catch-up failed", name, e);
+            }
+        }
+    }
+
+    private long replay(Projection projection) {
+        String name = projection.name();
+        Set<String> eventTypes = projection.eventTypes();
+        long cursor = checkpointStore.get(name);
+        long applied = 0;
+        long startNanos = System.nanoTime();
+        CompletableFuture<List<EventEntry>> next = read(cursor);
+        while (true) {
+            List<EventEntry> chunk = next.join();
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long lastId = chunk.get(chunk.size() - 1).getId();
+            boolean more = chunk.size() >= chunkSize;
+            next = more ? read(lastId) : CompletableFuture.completedFuture(Collections.emptyList());
+
+            applied += apply(projection, eventTypes, chunk);
+            checkpointStore.update(name, lastId);
+            if (!more) {
+                break;
+            }
+        }
+        if (applied > 0) {
+            logger.info("projection {} applied {} events in {} ms", name, applied,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        }
+        return applied;
+    }
+
+    private CompletableFuture<List<EventEntry>> read(long afterId) {
+        return CompletableFuture.supplyAsync(() -> eventStore.getAfter(afterId, chunkSize), reader);
+    }
+
+    private int apply(Projection projection, Set<String> eventTypes, List<EventEntry> chunk) {
+        List<List<EventEntry>> partitions = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        int count = 0;
+        for (EventEntry entry : chunk) {
+            if (eventTypes.isEmpty() || eventTypes.contains(entry.getType())) {
+                partitions.get(partitionOf(entry)).add(entry);
+                count++;
+            }
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<EventEntry> partition : partitions) {
+            if (!partition.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> projection.apply(partition), workers));
+            }
+        }
+        // 하나라도 실패하면 checkpoint 를 넘기지 않고 다음 실행에서 이 chunk 부터 다시 반영한다
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return count;
+    }
+
+    // key 가 없는 이벤트끼리는 순서를 알 수 없으므로 모두 0 번 파티션에서 id 순서대로 반영한다
+    private int partitionOf(EventEntry entry) {
+        String key = entry.getAggregateKey();
+        if (key == null) return 0;
+        return Math.floorMod(key.hashCode(), parallelism);
+    }
+
+    private Projection projectionOf(String name) {
+        Projection projection = projections.get(name);
+        if (projection == null) {
+            throw new IllegalArgumentException("no projection " + name);
+        }
+        return projection;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reader.shutdownNow();
+        workers.shutdownNow();
+    }
+}
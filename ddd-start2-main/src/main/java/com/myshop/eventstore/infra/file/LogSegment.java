@@ -0,0 +1,181 @@
+package com.myshop.eventstore.infra.file;
+
+import com.myshop.eventstore.api.EventEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * baseId 부터 시작하는 이벤트를 담는 로그 파일과 인덱스 파일. 두 파일 모두 고정 크기로 만들어서 통째로 메모리 매핑한다.
+ * 로그 레코드는 [길이][CRC32][본문], 인덱스는 i 번째 이벤트(baseId + i)의 로그 위치 + 1 이다(0 은 빈 칸).
+ */
+class LogSegment {
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 4;
+
+    private final long baseId;
+    private final int indexEntries;
+    private final FileChannel logChannel;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer log;
+    private final MappedByteBuffer index;
+    private int writePosition;
+    private volatile int count;
+
+    private LogSegment(Path directory, long baseId, int segmentBytes, int indexEntries) throws IOException {
+        this.baseId = baseId;
+        this.indexEntries = indexEntries;
+        this.logChannel = FileChannel.open(directory.resolve(fileName(baseId, "log")),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexChannel = FileChannel.open(directory.resolve(fileName(baseId, "idx")),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) indexEntries * INDEX_ENTRY_BYTES);
+    }
+
+    static LogSegment open(Path directory, long baseId, int segmentBytes, int indexEntries) {
+        try {
+            LogSegment segment = new LogSegment(directory, baseId, segmentBytes, indexEntries);
+            segment.recover();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String fileName(long baseId, String extension) {
+        return String.format("%020d.%s", baseId, extension);
+    }
+
+    /**
+     * 인덱스를 따라가며 CRC 가 맞는 레코드까지만 살린다. 디스크에 내리기 전에 멈춘 꼬리는 버린다.
+     */
+    private void recover() {
+        int valid = 0;
+        int position = 0;
+        while (valid < indexEntries) {
+            int entry = index.getInt(valid * INDEX_ENTRY_BYTES);
+            if (entry == 0 || entry - 1 != position || !isValidRecord(position)) {
+                break;
+            }
+            position += RECORD_HEADER_BYTES + log.getInt(position);
+            valid++;
+        }
+        for (int i = valid; i < indexEntries && index.getInt(i * INDEX_ENTRY_BYTES) != 0; i++) {
+            index.putInt(i * INDEX_ENTRY_BYTES, 0);
+        }
+        writePosition = position;
+        count = valid;
+    }
+
+    private boolean isValidRecord(int position) {
+        if (position + RECORD_HEADER_BYTES > log.capacity()) {
+            return false;
+        }
+        int length = log.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER_BYTES + length > log.capacity()) {
+            return false;
+        }
+        byte[] body = new byte[length];
+        log.get(position + RECORD_HEADER_BYTES, body);
+        return crcOf(body) == log.getInt(position + 4);
+    }
+
+    long getBaseId() {
+        return baseId;
+    }
+
+    long lastId() {
+        return baseId + count - 1;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * 자리가 없으면 false. 같은 세그먼트에 동시에 쓰지 않도록 호출하는 쪽에서 막는다.
+     */
+    boolean append(EventEntry entry, long id) {
+        byte[] body = encode(entry, id);
+        if (count >= indexEntries || writePosition + RECORD_HEADER_BYTES + body.length > log.capacity()) {
+            return false;
+        }
+        log.putInt(writePosition, body.length);
+        log.putInt(writePosition + 4, crcOf(body));
+        log.put(writePosition + RECORD_HEADER_BYTES, body);
+        index.putInt(count * INDEX_ENTRY_BYTES, writePosition + 1);
+        writePosition += RECORD_HEADER_BYTES + body.length;
+        count++;
+        return true;
+    }
+
+    EventEntry read(long id) {
+        int position = index.getInt((int) (id - baseId) * INDEX_ENTRY_BYTES) - 1;
+        byte[] body = new byte[log.getInt(position)];
+        log.get(position + RECORD_HEADER_BYTES, body);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            long entryId = in.readLong();
+            long timestamp = in.readLong();
+            String type = in.readUTF();
+            String contentType = in.readUTF();
+            String aggregateKey = in.readBoolean() ? in.readUTF() : null;
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            return new EventEntry(entryId, type, contentType, payload, aggregateKey, timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] encode(EventEntry entry, long id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.payloadBytes().length + 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(id);
+            out.writeLong(entry.getTimestamp());
+            out.writeUTF(entry.getType());
+            out.writeUTF(entry.getContentType());
+            out.writeBoolean(entry.getAggregateKey() != null);
+            if (entry.getAggregateKey() != null) {
+                out.writeUTF(entry.getAggregateKey());
+            }
+            out.writeInt(entry.payloadBytes().length);
+            out.write(entry.payloadBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int crcOf(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 로그를 먼저 내리고 인덱스를 내린다. 인덱스가 가리키는 레코드는 항상 디스크에 있다.
+     */
+    void force() {
+        log.force();
+        index.force();
+    }
+
+    void close() {
+        try {
+            logChannel.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.myshop.eventstore.infra.file;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.api.EventsAppended;
+import com.myshop.eventstore.infra.EventSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 로컬 디스크의 append-only 로그에 이벤트를 저장한다. 세그먼트 파일은 메모리 매핑해서 쓰고 읽는다.
+ * id 는 1 부터 빈틈없이 붙이므로 offset 과 id 가 1 차이로 대응하고, 인덱스로 바로 레코드 위치를 찾는다.
+ * 저장 스레드는 flusher 가 자기 이벤트까지 fsync 할 때까지 기다리며, 그동안 들어온 저장은 한 번의 fsync 로 묶인다.
+ * DB 트랜잭션에 참여하지 않으므로 eventstore.append-mode=AFTER_COMMIT 과 함께 쓴다.
+ * fsync 가 실패하면 backoff 하며 다시 시도하고, MAX_FSYNC_FAILURES 번 연속 실패하면 기다리던 저장을 실패시키고
+ * 이후 저장도 받지 않는다. 디스크를 고친 뒤 재시작해야 한다.
+ */
+@Component
+@ConditionalOnProperty(name = "eventstore.storage", havingValue = "file")
+public class MappedFileEventStore implements EventStore {
+    private static final int MAX_FSYNC_FAILURES = 5;
+    private static final long FSYNC_RETRY_BASE_MILLIS = 10;
+    private static final long FSYNC_RETRY_MAX_MILLIS = 1000;
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private EventSerializer eventSerializer;
+    private ApplicationEventPublisher eventPublisher;
+    private Path directory;
+    private int segmentBytes;
+    private int indexEntries;
+
+    private List<LogSegment> segments = new CopyOnWriteArrayList<>();
+    private LogSegment active;
+    private volatile long lastAppendedId;
+    private volatile long durableId;
+    private final Object flushMonitor = new Object();
+    private Thread flusher;
+    private volatile boolean running;
+    private volatile RuntimeException fsyncFailure;
+
+    public MappedFileEventStore(EventSerializer eventSerializer,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${eventstore.file.directory:./event-log}") String directory,
+                                @Value("${eventstore.file.segment-bytes:67108864}") int segmentBytes) {
+        this.eventSerializer = eventSerializer;
+        this.eventPublisher = eventPublisher;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        // 레코드는 최소 수십 바이트라서 인덱스가 먼저 차는 일은 드물다
+        this.indexEntries = segmentBytes / 32;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Long> baseIds = files
+                        .map(path -> path.getFileName().toString())
+                        .filter(name -> name.endsWith(".log"))
+                        .map(name -> Long.parseLong(name.substring(0, name.length() - 4)))
+                        .sorted()
+                        .collect(Collectors.toList());
+                for (long baseId : baseIds) {
+                    segments.add(LogSegment.open(directory, baseId, segmentBytes, indexEntries));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (segments.isEmpty()) {
+            segments.add(LogSegment.open(directory, 1, segmentBytes, indexEntries));
+        }
+        active = segments.get(segments.size() - 1);
+        lastAppendedId = active.getCount() == 0 ? active.getBaseId() - 1 : active.lastId();
+        durableId = lastAppendedId;
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "event-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void save(Object event) {
+        awaitDurable(append(List.of(eventSerializer.toEntry(event))));
+    }
+
+    @Override
+    public void saveAll(List<?> events) {
+        if (events.isEmpty()) return;
+        List<EventEntry> entries = events.stream().map(eventSerializer::toEntry).collect(Collectors.toList());
+        awaitDurable(append(entries));
+    }
+
+    private synchronized long append(List<EventEntry> entries) {
+        checkWritable();
+        for (EventEntry entry : entries) {
+            long id = lastAppendedId + 1;
+            if (!active.append(entry, id)) {
+                active = LogSegment.open(directory, id, segmentBytes, indexEntries);
+                segments.add(active);
+                if (!active.append(entry, id)) {
+                    throw new IllegalArgumentException("event " + entry.getType() + " is larger than segment");
+                }
+            }
+            lastAppendedId = id;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        return lastAppendedId;
+    }
+
+    private void awaitDurable(long id) {
+        synchronized (flushMonitor) {
+            while (durableId < id) {
+                checkWritable();
+                if (!running) {
+                    throw new IllegalStateException("event log is closed");
+                }
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for fsync", e);
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        int failures = 0;
+        while (running) {
+            long target = lastAppendedId;
+            if (target <= durableId) {
+                synchronized (flushMonitor) {
+                    try {
+                        if (running && lastAppendedId <= durableId) {
+                            flushMonitor.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            try {
+                force(target);
+                failures = 0;
+            } catch (RuntimeException e) {
+                failures++;
+                if (failures >= MAX_FSYNC_FAILURES) {
+                    logger.error("event log fsync failed {} times, rejecting appends", failures, e);
+                    synchronized (flushMonitor) {
+                        fsyncFailure = e;
+                        flushMonitor.notifyAll();
+                    }
+                    return;
+                }
+                long backoff = Math.min(FSYNC_RETRY_BASE_MILLIS << (failures - 1), FSYNC_RETRY_MAX_MILLIS);
+                logger.error("event log fsync failed (attempt {}), retrying in {} ms", failures, backoff, e);
+                // flushMonitor 로 기다리면 저장이 들어올 때마다 깨어나므로 sleep 한다
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                continue;
+            }
+            long appended = target - durableId;
+            synchronized (flushMonitor) {
+                durableId = target;
+                flushMonitor.notifyAll();
+            }
+            eventPublisher.publishEvent(new EventsAppended((int) appended));
+        }
+    }
+
+    private void checkWritable() {
+        if (fsyncFailure != null) {
+            throw new IllegalStateException("event log fsync failed", fsyncFailure);
+        }
+    }
+
+    void force(long target) {
+        for (LogSegment segment : segments) {
+            if (segment.getBaseId() <= target && segment.lastId() > durableId) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * id 가 빈틈없이 1 부터 붙으므로 offset 번째 이벤트는 id 가 offset + 1 인 이벤트다.
+     */
+    @Override
+    public List<EventEntry> get(long offset, long limit) {
+        return getAfter(offset, limit);
+    }
+
+    /**
+     * fsync 가 끝난 이벤트만 읽는다.
+     */
+    @Override
+    public List<EventEntry> getAfter(long lastId, long limit) {
+        long last = Math.min(durableId, lastId + limit);
+        List<EventEntry> result = new ArrayList<>();
+        LogSegment segment = null;
+        for (long id = Math.max(lastId + 1, 1); id <= last; id++) {
+            if (segment == null || id > segment.lastId()) {
+                segment = segmentOf(id);
+            }
+            result.add(segment.read(id));
+        }
+        return result;
+    }
+
+    @Override
+    public long getLastId() {
+        return durableId;
+    }
+
+    private LogSegment segmentOf(long id) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments.get(mid).getBaseId() <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return segments.get(low);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        flusher.join(5000);
+        synchronized (this) {
+            for (LogSegment segment : segments) {
+                segment.force();
+                segment.close();
+            }
+        }
+    }
+}
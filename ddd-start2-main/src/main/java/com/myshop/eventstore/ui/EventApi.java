@@ -2,25 +2,122 @@ package com.myshop.eventstore.ui;
 
 import com.myshop.eventstore.api.EventEntry;
 import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.infra.EventSerializer;
+import com.myshop.eventstore.infra.EventTail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * 저장 포맷과 상관없이 payload 는 JSON 으로 준다.
+ */
 @RestController
 public class EventApi {
+    private static final long STREAM_BATCH_SIZE = 1000;
+    private static final long MAX_LIMIT = 1000;
+
     private EventStore eventStore;
+    private EventTail eventTail;
+    private EventSerializer eventSerializer;
+    private long maxWaitMillis;
+    private long streamTimeoutMillis;
 
-    public EventApi(EventStore eventStore) {
+    public EventApi(EventStore eventStore, EventTail eventTail, EventSerializer eventSerializer,
+                    @Value("${eventstore.tail.max-wait-millis:30000}") long maxWaitMillis,
+                    @Value("${eventstore.tail.stream-timeout-millis:300000}") long streamTimeoutMillis) {
         this.eventStore = eventStore;
+        this.eventTail = eventTail;
+        this.eventSerializer = eventSerializer;
+        this.maxWaitMillis = maxWaitMillis;
+        this.streamTimeoutMillis = streamTimeoutMillis;
     }
 
+    /**
+     * after(마지막으로 받은 이벤트 id)를 주면 id 기준으로 이어서 읽고, 없으면 기존처럼 offset 으로 읽는다.
+     */
     @RequestMapping(value = "/api/events", method = RequestMethod.GET)
     public List<EventEntry> list(
-            @RequestParam("offset") Long offset,
+            @RequestParam(value = "offset", required = false) Long offset,
+            @RequestParam(value = "after", required = false) Long after,
             @RequestParam("limit") Long limit) {
-        return eventStore.get(offset, limit);
+        checkLimit(limit);
+        if (after != null) {
+            return eventSerializer.toJson(eventStore.getAfter(after, limit));
+        }
+        return eventSerializer.toJson(eventStore.get(offset == null ? 0 : offset, limit));
+    }
+
+    /**
+     * long-poll. after 뒤에 이벤트가 생길 때까지 응답을 보류하고, waitMillis 안에 없으면 빈 목록을 준다.
+     */
+    @RequestMapping(value = "/api/events/poll", method = RequestMethod.GET)
+    public DeferredResult<List<EventEntry>> poll(
+            @RequestParam("after") Long after,
+            @RequestParam("limit") Long limit,
+            @RequestParam(value = "waitMillis", required = false) Long waitMillis) {
+        checkLimit(limit);
+        checkCursor(after);
+        long timeout = waitMillis == null ? maxWaitMillis : Math.min(waitMillis, maxWaitMillis);
+        DeferredResult<List<EventEntry>> result = new DeferredResult<>(timeout, Collections.emptyList());
+        EventTail.Subscription subscription = eventTail.subscribe(after, limit, true,
+                entries -> result.setResult(eventSerializer.toJson(entries)));
+        result.onCompletion(subscription::close);
+        return result;
+    }
+
+    /**
+     * SSE. 각 이벤트를 id 와 함께 보내므로 재연결 시 Last-Event-ID 헤더로 이어서 받는다.
+     */
+    @RequestMapping(value = "/api/events/stream", method = RequestMethod.GET)
+    public SseEmitter stream(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long cursor = lastEventId != null ? lastEventId : (after == null ? 0 : after);
+        checkCursor(cursor);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        EventTail.Subscription subscription = eventTail.subscribe(cursor, STREAM_BATCH_SIZE, false,
+                entries -> send(emitter, entries));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    private void checkLimit(long limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    private void checkCursor(long cursor) {
+        if (cursor < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after must not be negative");
+        }
+    }
+
+    private void send(SseEmitter emitter, List<EventEntry> entries) {
+        try {
+            for (EventEntry entry : entries) {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(entry.getId()))
+                        .name(entry.getType())
+                        .data(eventSerializer.toJson(entry)));
+            }
+        } catch (IOException e) {
+            // 끊긴 연결이다. 구독은 EventTail 이 닫는다.
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,10 @@
+package com.myshop.integration;
+
+import com.myshop.eventstore.api.EventEntry;
+
+/**
+ * 재시도를 모두 실패한 이벤트를 보관한다. 보관한 이벤트는 offset 진행을 막지 않는다.
+ */
+public interface DeadLetterStore {
+    void save(int partition, EventEntry entry, int attempts, Exception cause);
+}
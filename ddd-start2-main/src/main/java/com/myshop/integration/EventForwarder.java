@@ -2,11 +2,19 @@ package com.myshop.integration;
 
 import com.myshop.eventstore.api.EventEntry;
 import com.myshop.eventstore.api.EventStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
 
+/**
+ * 이벤트를 aggregate key 의 해시로 파티션에 나눠서 파티션별 워커가 병렬로 전송한다.
+ * 같은 키의 이벤트는 같은 파티션에서 저장 순서대로 나간다. 읽기는 워커의 전송과 겹쳐서 진행된다.
+ * 한 파티션이 밀려서 큐가 차면 그 파티션만 건너뛰고 나머지 파티션은 계속 받는다.
+ */
 @Component
 public class EventForwarder {
     private static final int DEFAULT_LIMIT_SIZE = 100;
@@ -14,47 +22,99 @@ public class EventForwarder {
     private EventStore eventStore;
     private OffsetStore offsetStore;
     private EventSender eventSender;
+    private DeadLetterStore deadLetterStore;
+    private ForwarderRetryPolicy retryPolicy;
+    private ForwarderMetrics metrics;
     private int limitSize = DEFAULT_LIMIT_SIZE;
+    private int partitionCount;
+
+    private PartitionWorker[] workers;
+    private Thread[] workerThreads;
+    private long dispatchedEventId;
 
     public EventForwarder(EventStore eventStore,
                           OffsetStore offsetStore,
-                          EventSender eventSender) {
+                          EventSender eventSender,
+                          DeadLetterStore deadLetterStore,
+                          ForwarderRetryPolicy retryPolicy,
+                          ForwarderMetrics metrics,
+                          @Value("${forwarder.partitions:4}") int partitionCount) {
         this.eventStore = eventStore;
         this.offsetStore = offsetStore;
         this.eventSender = eventSender;
+        this.deadLetterStore = deadLetterStore;
+        this.retryPolicy = retryPolicy;
+        this.metrics = metrics;
+        this.partitionCount = partitionCount;
     }
 
-    @Scheduled(initialDelay = 1000L, fixedDelay = 1000L)
-    public void getAndSend() {
-        long nextOffset = getNextOffset();
-        List<EventEntry> events = eventStore.get(nextOffset, limitSize);
-        if (!events.isEmpty()) {
-            int processedCount = sendEvent(events);
-            if (processedCount > 0) {
-                saveNextOffset(nextOffset + processedCount);
-            }
+    @PostConstruct
+    public void start() {
+        workers = new PartitionWorker[partitionCount];
+        workerThreads = new Thread[partitionCount];
+        dispatchedEventId = Long.MAX_VALUE;
+        for (int i = 0; i < partitionCount; i++) {
+            workers[i] = new PartitionWorker(i, limitSize * 2, offsetStore, eventSender,
+                    deadLetterStore, retryPolicy, metrics);
+            metrics.registerPartition(workers[i], offsetStore);
+            // 가장 뒤처진 파티션부터 다시 읽는다. 이미 보낸 파티션의 이벤트는 dispatch 할 때 건너뛴다.
+            dispatchedEventId = Math.min(dispatchedEventId, workers[i].getLastEventId());
+            workerThreads[i] = new Thread(workers[i], "event-forwarder-" + i);
+            workerThreads[i].setDaemon(true);
+            workerThreads[i].start();
         }
+        metrics.dispatched(dispatchedEventId);
     }
 
-    private long getNextOffset() {
-        return offsetStore.get();
+    @Scheduled(initialDelay = 1000L, fixedDelay = 100L)
+    public void getAndSend() {
+        for (PartitionWorker worker : workers) {
+            if (worker.takeResumeRequest() || worker.takeOverflowResume(limitSize)) {
+                // 그 파티션이 마지막으로 받은 이벤트 뒤부터 다시 읽는다. 다른 파티션이 이미 받은 이벤트는 건너뛴다.
+                dispatchedEventId = Math.min(dispatchedEventId, worker.getAssignedEventId());
+                metrics.dispatched(dispatchedEventId);
+            }
+        }
+        while (hasCapacity()) {
+            List<EventEntry> events = eventStore.getAfter(dispatchedEventId, limitSize);
+            if (events.isEmpty()) {
+                return;
+            }
+            for (EventEntry entry : events) {
+                PartitionWorker worker = workers[partitionOf(entry)];
+                if (!worker.isSuspended() && !worker.isOverflowed() && entry.getId() > worker.getAssignedEventId()) {
+                    // 큐가 가득 찬 파티션은 그 파티션만 건너뛰고, 자리가 나면 건너뛴 이벤트부터 다시 읽는다
+                    worker.offer(entry);
+                }
+                dispatchedEventId = entry.getId();
+            }
+            metrics.dispatched(dispatchedEventId);
+        }
     }
 
-    private int sendEvent(List<EventEntry> events) {
-        int processedCount = 0;
-        try {
-            for (EventEntry entry : events) {
-                eventSender.send(entry);
-                processedCount++;
+    /**
+     * 이벤트를 받을 수 있는 파티션이 하나라도 있으면 더 읽는다.
+     */
+    private boolean hasCapacity() {
+        for (PartitionWorker worker : workers) {
+            if (!worker.isSuspended() && !worker.isOverflowed()) {
+                return true;
             }
-        } catch(Exception ex) {
-            // 로깅 처리
         }
-        return processedCount;
+        return false;
     }
 
-    private void saveNextOffset(long nextOffset) {
-        offsetStore.update(nextOffset);
+    int partitionOf(EventEntry entry) {
+        String key = entry.getAggregateKey();
+        int hash = key != null ? key.hashCode() : Long.hashCode(entry.getId());
+        return Math.floorMod(hash, partitionCount);
     }
 
+    @PreDestroy
+    public void stop() {
+        for (int i = 0; i < partitionCount; i++) {
+            workers[i].stop();
+            workerThreads[i].interrupt();
+        }
+    }
 }
@@ -2,6 +2,9 @@ package com.myshop.integration;
 
 import com.myshop.eventstore.api.EventEntry;
 
+/**
+ * 저장 포맷이 바이너리(smile)일 수 있으므로 밖으로 보낼 때는 EventSerializer.toJson 으로 JSON 으로 바꿔서 보낸다.
+ */
 public interface EventSender {
     void send(EventEntry event);
 }
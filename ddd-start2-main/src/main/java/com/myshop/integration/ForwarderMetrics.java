@@ -0,0 +1,75 @@
+package com.myshop.integration;
+
+import com.myshop.eventstore.api.EventStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * forwarder 전송 수, 실패 수, dead letter 수와 파티션별 lag(저장소의 최신 이벤트 id - 파티션 offset).
+ * 파티션에 보낼 이벤트가 없으면 lag 은 0 이다. forwarder 가 아직 읽지 않은 이벤트가 있으면 어느 파티션 것인지
+ * 모르므로 모든 파티션에 보낼 이벤트가 있는 것으로 본다. 전송률과 실패율은 카운터의 증가율로 본다.
+ */
+@Component
+public class ForwarderMetrics {
+    private static final long STORE_HEAD_REFRESH_MILLIS = 1000;
+
+    private MeterRegistry registry;
+    private EventStore eventStore;
+    private Counter sent;
+    private Counter failed;
+    private Counter deadLettered;
+    private volatile long dispatchedEventId;
+    private volatile long storeHeadId;
+    private volatile long storeHeadReadAt;
+
+    public ForwarderMetrics(MeterRegistry registry, EventStore eventStore) {
+        this.registry = registry;
+        this.eventStore = eventStore;
+        this.sent = registry.counter("forwarder.events.sent");
+        this.failed = registry.counter("forwarder.events.failed");
+        this.deadLettered = registry.counter("forwarder.events.dead-lettered");
+    }
+
+    void registerPartition(PartitionWorker worker, OffsetStore offsetStore) {
+        Gauge.builder("forwarder.lag", worker, w -> lag(w, offsetStore.get(w.getPartition())))
+                .tag("partition", String.valueOf(worker.getPartition()))
+                .register(registry);
+    }
+
+    private long lag(PartitionWorker worker, long offset) {
+        long head = storeHead();
+        boolean pending = worker.getAssignedEventId() > offset || worker.isOverflowed() || dispatchedEventId < head;
+        return pending ? Math.max(0, head - offset) : 0;
+    }
+
+    // 파티션 수만큼 gauge 가 읽으므로 저장소 조회는 STORE_HEAD_REFRESH_MILLIS 에 한 번만 한다
+    private long storeHead() {
+        long now = System.currentTimeMillis();
+        if (now - storeHeadReadAt >= STORE_HEAD_REFRESH_MILLIS) {
+            storeHeadId = eventStore.getLastId();
+            storeHeadReadAt = now;
+        }
+        return storeHeadId;
+    }
+
+    /**
+     * forwarder 가 파티션에 나눠 준 마지막 이벤트 id.
+     */
+    void dispatched(long eventId) {
+        dispatchedEventId = eventId;
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    void deadLettered() {
+        deadLettered.increment();
+    }
+}
@@ -0,0 +1,41 @@
+package com.myshop.integration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 이벤트 하나의 전송 재시도 횟수와 대기 시간. 대기 시간은 지수로 늘리고 maxBackoffMillis 에서 멈춘다.
+ */
+@Component
+public class ForwarderRetryPolicy {
+    private int maxAttempts;
+    private long initialBackoffMillis;
+    private long maxBackoffMillis;
+
+    public ForwarderRetryPolicy(@Value("${forwarder.retry.max-attempts:5}") int maxAttempts,
+                                @Value("${forwarder.retry.initial-backoff-millis:100}") long initialBackoffMillis,
+                                @Value("${forwarder.retry.max-backoff-millis:5000}") long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public boolean canRetry(int attempts) {
+        return attempts < maxAttempts;
+    }
+
+    /**
+     * attempts 번 실패한 뒤 기다릴 시간. 파티션들이 같은 순간에 다시 보내지 않도록 절반 범위에서 흔든다.
+     */
+    public long backoffMillis(int attempts) {
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 30));
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+}
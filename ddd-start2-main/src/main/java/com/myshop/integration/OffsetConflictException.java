@@ -0,0 +1,7 @@
+package com.myshop.integration;
+
+public class OffsetConflictException extends RuntimeException {
+    public OffsetConflictException(String consumer, int partition) {
+        super("offset already advanced by another forwarder : " + consumer + "/" + partition);
+    }
+}
@@ -1,6 +1,20 @@
 package com.myshop.integration;
 
+/**
+ * 파티션별로 마지막으로 전송한 이벤트의 id 를 보관한다. 아직 보낸 이벤트가 없으면 0 이다.
+ */
 public interface OffsetStore {
-    long get();
-    void update(long nextOffset);
+    long get(int partition);
+    void update(int partition, long lastEventId);
+
+    /**
+     * 파티션 lease 를 얻거나 연장한다. 다른 forwarder 가 유효한 lease 를 갖고 있으면 false 다.
+     * lease 를 가진 forwarder 만 offset 을 갱신할 수 있다.
+     */
+    boolean acquire(int partition);
+
+    /**
+     * 저장하지 않은 진행분을 버리고 저장된 offset 을 다시 읽는다. 다른 forwarder 와 충돌한 뒤에 쓴다.
+     */
+    long reload(int partition);
 }
@@ -0,0 +1,242 @@
+package com.myshop.integration;
+
+import com.myshop.eventstore.api.EventEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 한 파티션의 이벤트를 큐에 들어온 순서대로 전송하고, 보낼 때마다 파티션 offset 을 갱신한다.
+ * 전송에 실패하면 같은 이벤트를 backoff 하며 다시 보내서 파티션 안의 순서를 지킨다.
+ * 재시도를 모두 실패한 이벤트는 dead letter 로 보관하고 다음 이벤트로 넘어간다.
+ * 파티션 lease 를 가진 동안만 보낸다. 시작할 때 lease 를 얻지 못했거나 다른 forwarder 가 offset 을 진행시켰으면(충돌)
+ * 파티션을 내려놓고, lease 를 얻을 때까지 backoff 하며 기다린다. lease 를 얻으면 저장된 offset 을 다시 읽고
+ * forwarder 에게 그 뒤부터 다시 받는다. 그래서 충돌한 인스턴스가 여럿이어도 하나만 파티션을 다시 받는다.
+ * 내려놓은 동안 forwarder 는 이 파티션에 넣지 않고, 그 전에 들어온 이벤트는 버린다.
+ */
+class PartitionWorker implements Runnable {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int partition;
+    private final BlockingQueue<Dispatched> queue;
+    private final OffsetStore offsetStore;
+    private final EventSender eventSender;
+    private final DeadLetterStore deadLetterStore;
+    private final ForwarderRetryPolicy retryPolicy;
+    private final ForwarderMetrics metrics;
+    private volatile long lastEventId;
+    // forwarder 가 이 파티션에 넣은 마지막 이벤트 id. lastEventId 보다 크면 보낼 이벤트가 남아 있다.
+    private volatile long assignedEventId;
+    private volatile boolean running = true;
+    // 파티션을 다시 받을 때마다 늘린다. 이전 epoch 에 들어온 이벤트는 보내지 않는다.
+    private volatile int epoch;
+    private volatile boolean suspended;
+    private volatile boolean resumeRequested;
+    // 큐가 가득 차서 forwarder 가 이 파티션 이벤트를 건너뛰는 중. forwarder 스레드에서만 바꾼다.
+    private volatile boolean overflowed;
+
+    PartitionWorker(int partition, int capacity, OffsetStore offsetStore, EventSender eventSender,
+                    DeadLetterStore deadLetterStore, ForwarderRetryPolicy retryPolicy, ForwarderMetrics metrics) {
+        this.partition = partition;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.offsetStore = offsetStore;
+        this.eventSender = eventSender;
+        this.deadLetterStore = deadLetterStore;
+        this.retryPolicy = retryPolicy;
+        this.metrics = metrics;
+        this.lastEventId = offsetStore.get(partition);
+        this.assignedEventId = lastEventId;
+        this.suspended = !offsetStore.acquire(partition);
+    }
+
+    int getPartition() {
+        return partition;
+    }
+
+    long getLastEventId() {
+        return lastEventId;
+    }
+
+    long getAssignedEventId() {
+        return assignedEventId;
+    }
+
+    int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * 큐에 자리가 없으면 넣지 않고 overflowed 로 표시한다. 그 뒤로는 takeOverflowResume 전까지 이 파티션에 넣지 않는다.
+     */
+    boolean offer(EventEntry entry) {
+        if (!queue.offer(new Dispatched(entry, epoch))) {
+            overflowed = true;
+            return false;
+        }
+        assignedEventId = entry.getId();
+        return true;
+    }
+
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * 건너뛰던 파티션의 큐에 minCapacity 만큼 자리가 나면 true 를 한 번 돌려준다.
+     * forwarder 는 getAssignedEventId() 뒤부터 다시 넣는다.
+     */
+    boolean takeOverflowResume(int minCapacity) {
+        if (!overflowed || queue.remainingCapacity() < minCapacity) {
+            return false;
+        }
+        overflowed = false;
+        return true;
+    }
+
+    /**
+     * 충돌로 파티션을 내려놓은 상태. forwarder 는 이 파티션에 넣지 않고 용량 계산에서도 뺀다.
+     */
+    boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * offset 을 다시 읽었으면 true 를 한 번 돌려주고 파티션을 다시 받는다. forwarder 는 getAssignedEventId() 뒤부터 다시 넣는다.
+     */
+    boolean takeResumeRequest() {
+        if (!resumeRequested) {
+            return false;
+        }
+        resumeRequested = false;
+        // forwarder 스레드에서 부르므로 지금 큐에 있는 이벤트는 모두 이전 epoch 로 버려진다
+        epoch++;
+        assignedEventId = lastEventId;
+        overflowed = false;
+        suspended = false;
+        return true;
+    }
+
+    @Override
+    public void run() {
+        if (suspended) {
+            logger.info("partition {} is owned by another forwarder", partition);
+            try {
+                awaitLease();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        while (running) {
+            try {
+                Dispatched dispatched = queue.take();
+                if (dispatched.epoch != epoch || suspended) {
+                    continue;
+                }
+                EventEntry entry = dispatched.entry;
+                send(entry);
+                lastEventId = entry.getId();
+                updateOffset(lastEventId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (OffsetConflictException e) {
+                try {
+                    relinquish(e);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void relinquish(OffsetConflictException e) throws InterruptedException {
+        // 다른 forwarder 가 이 파티션을 진행시키고 있다
+        suspended = true;
+        logger.warn("partition {} relinquished : {}", partition, e.getMessage());
+        awaitLease();
+    }
+
+    private void awaitLease() throws InterruptedException {
+        for (int attempts = 1; ; attempts++) {
+            Thread.sleep(retryPolicy.backoffMillis(attempts));
+            try {
+                if (offsetStore.acquire(partition)) {
+                    lastEventId = offsetStore.reload(partition);
+                    break;
+                }
+            } catch (RuntimeException ex) {
+                logger.error("partition {} failed to acquire lease", partition, ex);
+            }
+        }
+        logger.info("partition {} resumes after event {}", partition, lastEventId);
+        resumeRequested = true;
+    }
+
+    private void send(EventEntry entry) throws InterruptedException {
+        for (int attempts = 1; ; attempts++) {
+            try {
+                eventSender.send(entry);
+                metrics.sent();
+                return;
+            } catch (Exception ex) {
+                metrics.failed();
+                if (!retryPolicy.canRetry(attempts)) {
+                    logger.error("partition {} gave up event {} after {} attempts",
+                            partition, entry.getId(), attempts, ex);
+                    deadLetter(entry, attempts, ex);
+                    return;
+                }
+                logger.warn("partition {} failed to send event {} (attempt {})",
+                        partition, entry.getId(), attempts, ex);
+                Thread.sleep(retryPolicy.backoffMillis(attempts));
+            }
+        }
+    }
+
+    private void updateOffset(long eventId) throws InterruptedException {
+        // DB 오류로 스레드가 끝나면 파티션이 멈추므로 저장될 때까지 backoff 하며 다시 저장한다. 충돌은 relinquish 로 넘긴다.
+        for (int attempts = 1; ; attempts++) {
+            try {
+                offsetStore.update(partition, eventId);
+                return;
+            } catch (OffsetConflictException e) {
+                throw e;
+            } catch (RuntimeException ex) {
+                logger.error("partition {} failed to update offset to {} (attempt {})", partition, eventId, attempts, ex);
+                Thread.sleep(retryPolicy.backoffMillis(attempts));
+            }
+        }
+    }
+
+    private void deadLetter(EventEntry entry, int attempts, Exception cause) throws InterruptedException {
+        // 보관하지 못한 채로 offset 을 넘기면 이벤트를 잃으므로 보관될 때까지 넘어가지 않는다.
+        while (true) {
+            try {
+                deadLetterStore.save(partition, entry, attempts, cause);
+                metrics.deadLettered();
+                return;
+            } catch (RuntimeException ex) {
+                logger.error("partition {} failed to store dead letter {}", partition, entry.getId(), ex);
+                Thread.sleep(retryPolicy.getMaxBackoffMillis());
+            }
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    private static class Dispatched {
+        private final EventEntry entry;
+        private final int epoch;
+
+        Dispatched(EventEntry entry, int epoch) {
+            this.entry = entry;
+            this.epoch = epoch;
+        }
+    }
+}
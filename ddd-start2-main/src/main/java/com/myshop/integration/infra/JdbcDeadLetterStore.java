@@ -0,0 +1,55 @@
+package com.myshop.integration.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.integration.DeadLetterStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * event_dead_letter 테이블에 원본 이벤트와 마지막 오류를 남긴다.
+ * offset checkpoint 전에 재시작해서 같은 이벤트가 다시 실패하면 기존 행을 갱신한다.
+ */
+@Component
+public class JdbcDeadLetterStore implements DeadLetterStore {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private JdbcTemplate jdbcTemplate;
+    private String consumer;
+
+    public JdbcDeadLetterStore(JdbcTemplate jdbcTemplate,
+                               @Value("${forwarder.consumer:default}") String consumer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void save(int partition, EventEntry entry, int attempts, Exception cause) {
+        jdbcTemplate.update(
+                "insert into event_dead_letter " +
+                        "(consumer, partition_no, event_id, type, content_type, payload, aggregate_key, " +
+                        "attempts, last_error, failed_time) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                        "on duplicate key update attempts = attempts + values(attempts), " +
+                        "last_error = values(last_error), failed_time = values(failed_time)",
+                ps -> {
+                    ps.setString(1, consumer);
+                    ps.setInt(2, partition);
+                    ps.setLong(3, entry.getId());
+                    ps.setString(4, entry.getType());
+                    ps.setString(5, entry.getContentType());
+                    ps.setBytes(6, entry.payloadBytes());
+                    ps.setString(7, entry.getAggregateKey());
+                    ps.setInt(8, attempts);
+                    ps.setString(9, errorOf(cause));
+                    ps.setTimestamp(10, new Timestamp(System.currentTimeMillis()));
+                });
+    }
+
+    private String errorOf(Exception cause) {
+        String error = cause.getClass().getName() + ": " + cause.getMessage();
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
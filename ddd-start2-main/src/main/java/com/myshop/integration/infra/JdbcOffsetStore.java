@@ -0,0 +1,193 @@
+package com.myshop.integration.infra;
+
+import com.myshop.integration.OffsetConflictException;
+import com.myshop.integration.OffsetStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * event_offset 테이블에 파티션별 offset 을 저장한다. 매 이벤트마다 쓰지 않고 checkpointEvents 건마다,
+ * 또는 checkpointIntervalMillis 가 지나면 한 번 쓴다. 재시작하면 마지막 checkpoint 이후 이벤트만 다시 보낸다.
+ * 마지막으로 저장한 값일 때만 갱신(CAS)하므로 두 forwarder 가 같은 파티션을 함께 진행시키지 못한다.
+ * 파티션마다 owner 와 lease_until 로 lease 를 두고, lease 를 가진 인스턴스만 offset 을 갱신한다.
+ * lease 는 checkpoint 를 쓸 때와 checkpointIdle 에서 연장하고, 종료할 때 내려놓는다.
+ */
+@Component
+public class JdbcOffsetStore implements OffsetStore {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private JdbcTemplate jdbcTemplate;
+    private String consumer;
+    private int checkpointEvents;
+    private long checkpointIntervalMillis;
+    private int leaseSeconds;
+    private String owner = UUID.randomUUID().toString();
+    private ConcurrentMap<Integer, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+    // lease 를 가진 파티션과 마지막으로 연장한 시각
+    private ConcurrentMap<Integer, Long> leases = new ConcurrentHashMap<>();
+
+    public JdbcOffsetStore(JdbcTemplate jdbcTemplate,
+                           @Value("${forwarder.consumer:default}") String consumer,
+                           @Value("${forwarder.checkpoint-events:100}") int checkpointEvents,
+                           @Value("${forwarder.checkpoint-interval-millis:1000}") long checkpointIntervalMillis,
+                           @Value("${forwarder.lease-seconds:10}") int leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consumer = consumer;
+        this.checkpointEvents = checkpointEvents;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    @Override
+    public long get(int partition) {
+        return checkpointOf(partition).current;
+    }
+
+    @Override
+    public void update(int partition, long lastEventId) {
+        Checkpoint checkpoint = checkpointOf(partition);
+        synchronized (checkpoint) {
+            checkpoint.current = lastEventId;
+            checkpoint.pending++;
+            if (checkpoint.isDue(checkpointEvents, checkpointIntervalMillis)) {
+                persist(partition, checkpoint);
+            }
+        }
+    }
+
+    @Override
+    public boolean acquire(int partition) {
+        checkpointOf(partition);
+        int updated = jdbcTemplate.update(
+                "update event_offset set owner = ?, lease_until = timestampadd(second, ?, now()) " +
+                        "where consumer = ? and partition_no = ? " +
+                        "and (owner is null or owner = ? or lease_until < now())",
+                owner, leaseSeconds, consumer, partition, owner);
+        if (updated == 0) {
+            leases.remove(partition);
+            return false;
+        }
+        leases.put(partition, System.currentTimeMillis());
+        return true;
+    }
+
+    @Override
+    public long reload(int partition) {
+        checkpoints.remove(partition);
+        return get(partition);
+    }
+
+    @Scheduled(initialDelayString = "${forwarder.checkpoint-interval-millis:1000}",
+            fixedDelayString = "${forwarder.checkpoint-interval-millis:1000}")
+    public void checkpointIdle() {
+        checkpoints.forEach((partition, checkpoint) -> {
+            synchronized (checkpoint) {
+                if (checkpoint.pending > 0 && checkpoint.isDue(checkpointEvents, checkpointIntervalMillis)) {
+                    try {
+                        persist(partition, checkpoint);
+                    } catch (OffsetConflictException e) {
+                        logger.error(e.getMessage());
+                    }
+                }
+            }
+        });
+        renewLeases();
+    }
+
+    // 보낼 이벤트가 없어 checkpoint 를 쓰지 않는 파티션도 lease 가 끝나기 전에 연장한다
+    private void renewLeases() {
+        long renewAfterMillis = leaseSeconds * 1000L / 3;
+        leases.forEach((partition, renewedTime) -> {
+            if (System.currentTimeMillis() - renewedTime < renewAfterMillis) {
+                return;
+            }
+            int updated = jdbcTemplate.update(
+                    "update event_offset set lease_until = timestampadd(second, ?, now()) " +
+                            "where consumer = ? and partition_no = ? and owner = ?",
+                    leaseSeconds, consumer, partition, owner);
+            if (updated == 0) {
+                logger.warn("lost lease of {}/{}", consumer, partition);
+                leases.remove(partition);
+            } else {
+                leases.put(partition, System.currentTimeMillis());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flush() {
+        checkpoints.forEach((partition, checkpoint) -> {
+            synchronized (checkpoint) {
+                if (checkpoint.pending > 0) {
+                    persist(partition, checkpoint);
+                }
+            }
+        });
+        // 다른 인스턴스가 lease 만료를 기다리지 않고 바로 받게 한다
+        for (Integer partition : leases.keySet()) {
+            jdbcTemplate.update(
+                    "update event_offset set owner = null, lease_until = null " +
+                            "where consumer = ? and partition_no = ? and owner = ?",
+                    consumer, partition, owner);
+        }
+        leases.clear();
+    }
+
+    private void persist(int partition, Checkpoint checkpoint) {
+        int updated = jdbcTemplate.update(
+                "update event_offset set last_event_id = ?, updated_time = now(), " +
+                        "lease_until = timestampadd(second, ?, now()) " +
+                        "where consumer = ? and partition_no = ? and owner = ? and last_event_id = ?",
+                checkpoint.current, leaseSeconds, consumer, partition, owner, checkpoint.persisted);
+        if (updated == 0) {
+            leases.remove(partition);
+            throw new OffsetConflictException(consumer, partition);
+        }
+        leases.computeIfPresent(partition, (p, renewedTime) -> System.currentTimeMillis());
+        checkpoint.persisted = checkpoint.current;
+        checkpoint.pending = 0;
+        checkpoint.persistedTime = System.currentTimeMillis();
+    }
+
+    private Checkpoint checkpointOf(int partition) {
+        return checkpoints.computeIfAbsent(partition, this::load);
+    }
+
+    private Checkpoint load(int partition) {
+        jdbcTemplate.update(
+                "insert ignore into event_offset (consumer, partition_no, last_event_id, updated_time) " +
+                        "values (?, ?, 0, now())",
+                consumer, partition);
+        Long lastEventId = jdbcTemplate.queryForObject(
+                "select last_event_id from event_offset where consumer = ? and partition_no = ?",
+                Long.class, consumer, partition);
+        return new Checkpoint(lastEventId == null ? 0 : lastEventId);
+    }
+
+    private static class Checkpoint {
+        private long persisted;
+        private long current;
+        private int pending;
+        private long persistedTime;
+
+        Checkpoint(long lastEventId) {
+            this.persisted = lastEventId;
+            this.current = lastEventId;
+            this.persistedTime = System.currentTimeMillis();
+        }
+
+        boolean isDue(int checkpointEvents, long checkpointIntervalMillis) {
+            return pending >= checkpointEvents
+                    || System.currentTimeMillis() - persistedTime >= checkpointIntervalMillis;
+        }
+    }
+}
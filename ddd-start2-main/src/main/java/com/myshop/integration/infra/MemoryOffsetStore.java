@@ -1,19 +1,33 @@
 package com.myshop.integration.infra;
 
 import com.myshop.integration.OffsetStore;
-import org.springframework.stereotype.Component;
 
-@Component
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 재시작하면 처음부터 다시 보낸다. 테스트용.
+ */
 public class MemoryOffsetStore implements OffsetStore {
-    private long nextOffset = 0;
+    private ConcurrentMap<Integer, Long> lastEventIds = new ConcurrentHashMap<>();
+
+    @Override
+    public long get(int partition) {
+        return lastEventIds.getOrDefault(partition, 0L);
+    }
+
+    @Override
+    public void update(int partition, long lastEventId) {
+        lastEventIds.put(partition, lastEventId);
+    }
 
     @Override
-    public long get() {
-        return nextOffset;
+    public boolean acquire(int partition) {
+        return true;
     }
 
     @Override
-    public void update(long nextOffset) {
-        this.nextOffset = nextOffset;
+    public long reload(int partition) {
+        return get(partition);
     }
 }
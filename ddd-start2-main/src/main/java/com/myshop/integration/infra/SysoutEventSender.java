@@ -1,13 +1,21 @@
 package com.myshop.integration.infra;
 
 import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.infra.EventSerializer;
 import com.myshop.integration.EventSender;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SysoutEventSender implements EventSender {
+    private EventSerializer eventSerializer;
+
+    public SysoutEventSender(EventSerializer eventSerializer) {
+        this.eventSerializer = eventSerializer;
+    }
+
     @Override
     public void send(EventEntry event) {
-        System.out.println("EventSender send event : " + event);
+        EventEntry json = eventSerializer.toJson(event);
+        System.out.println("EventSender send event : " + json.getType() + " " + json.getPayload());
     }
 }
@@ -0,0 +1,63 @@
+package com.myshop.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 이 노드가 잡은 락의 만료 시각을 기억한다. 만료 safetyMargin 전까지는 만료 여부를 DB 에서 읽지 않는다.
+ * 만료 전의 락은 다른 호출이 가져갈 수 없고(tryLock 의 만료 조건) 만료 시각은 늘어나기만 하므로 이 구간에서는 만료되지 않는다.
+ * 행은 다른 노드의 releaseLock 으로도 지워지므로 lease 는 행이 있는지 확인하는 것을 대신하지 않는다.
+ * safetyMargin 은 노드 사이 시계 차이와 expiration_time 의 초 단위 반올림을 덮을 만큼 잡는다.
+ */
+@Component
+public class LockLeaseCache {
+    private long safetyMarginMillis;
+    private int maxSize;
+    private ConcurrentMap<String, Long> leases = new ConcurrentHashMap<>();
+
+    public LockLeaseCache(@Value("${lock.lease.safety-margin-millis:5000}") long safetyMarginMillis,
+                          @Value("${lock.lease.max-size:10000}") int maxSize) {
+        this.safetyMarginMillis = safetyMarginMillis;
+        this.maxSize = maxSize;
+    }
+
+    public void put(LockId lockId, long expirationTime) {
+        if (leases.size() >= maxSize) {
+            evictExpired();
+            // 가득 차면 기억하지 않는다. 그 락은 DB 로 확인한다
+            if (leases.size() >= maxSize) return;
+        }
+        leases.put(lockId.getValue(), expirationTime);
+    }
+
+    /**
+     * 이미 기억하고 있는 락만 만료 시각을 바꾼다.
+     */
+    public void extend(LockId lockId, long expirationTime) {
+        leases.computeIfPresent(lockId.getValue(), (key, old) -> expirationTime);
+    }
+
+    public boolean isValid(LockId lockId) {
+        Long expirationTime = leases.get(lockId.getValue());
+        if (expirationTime == null) return false;
+        if (System.currentTimeMillis() < expirationTime - safetyMarginMillis) return true;
+        leases.remove(lockId.getValue(), expirationTime);
+        return false;
+    }
+
+    public void remove(LockId lockId) {
+        leases.remove(lockId.getValue());
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    private void evictExpired() {
+        long limit = System.currentTimeMillis() + safetyMarginMillis;
+        leases.values().removeIf(expirationTime -> expirationTime <= limit);
+    }
+}
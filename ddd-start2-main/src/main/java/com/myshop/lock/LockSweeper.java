@@ -0,0 +1,85 @@
+package com.myshop.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 만료된 락을 주기적으로 지운다. locks_expiration_idx 를 따라 batchSize 건씩 지우고, 한 번에 maxBatches 번을 넘기지 않는다.
+ * 각 delete 는 따로 커밋되므로 tryLock 과 오래 경합하지 않는다. 지우는 사이 다시 잡힌 락은 만료 시각이 바뀌어서 지우지 않는다.
+ */
+@Component
+public class LockSweeper {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private JdbcTemplate jdbcTemplate;
+    private boolean enabled;
+    private int batchSize;
+    private int maxBatches;
+
+    private Timer sweepTimer;
+    private Counter deleted;
+    private AtomicLong rows = new AtomicLong();
+    private AtomicLong expired = new AtomicLong();
+
+    public LockSweeper(JdbcTemplate jdbcTemplate,
+                       MeterRegistry registry,
+                       @Value("${lock.sweep.enabled:true}") boolean enabled,
+                       @Value("${lock.sweep.batch-size:1000}") int batchSize,
+                       @Value("${lock.sweep.max-batches:100}") int maxBatches) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.sweepTimer = registry.timer("lock.sweep.duration");
+        this.deleted = registry.counter("lock.sweep.deleted");
+        registry.gauge("lock.table.rows", rows);
+        registry.gauge("lock.table.expired", expired);
+    }
+
+    @Scheduled(initialDelayString = "${lock.sweep.interval-millis:60000}",
+            fixedDelayString = "${lock.sweep.interval-millis:60000}")
+    public void scheduledSweep() {
+        if (!enabled) return;
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            logger.error("lock sweep failed", e);
+        }
+    }
+
+    /**
+     * 지운 락 수를 돌려준다.
+     */
+    public synchronized int sweep() {
+        return sweepTimer.record(() -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            int total = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                int count = jdbcTemplate.update(
+                        "delete from locks where expiration_time < ? order by expiration_time limit " + batchSize,
+                        now);
+                total += count;
+                if (count < batchSize) break;
+            }
+            deleted.increment(total);
+            rows.set(jdbcTemplate.queryForObject("select count(*) from locks", Long.class));
+            // maxBatches 에 걸려서 남은 만료 락
+            expired.set(jdbcTemplate.queryForObject(
+                    "select count(*) from locks where expiration_time < ?", Long.class, now));
+            if (total > 0) {
+                logger.info("swept {} expired locks, {} locks remain", total, rows.get());
+            }
+            return total;
+        });
+    }
+}
@@ -3,10 +3,19 @@ package com.myshop.lock;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
@@ -14,69 +23,115 @@ import java.util.UUID;
 
 @Component
 public class SpringLockManager implements LockManager {
+    private static final String TRY_LOCK_SQL =
+            "insert into locks (type, id, lockid, expiration_time) values (?, ?, ?, ?) as new " +
+                    "on duplicate key update " +
+                    "lockid = if(locks.expiration_time < ?, new.lockid, if(last_insert_id(1), locks.lockid, locks.lockid)), " +
+                    "expiration_time = if(locks.expiration_time < ?, new.expiration_time, locks.expiration_time)";
+
     private int lockTimeout = 5 * 60 * 1000;
     private JdbcTemplate jdbcTemplate;
+    private LockLeaseCache leaseCache;
+    private TransactionTemplate requiresNew;
+    private TransactionTemplate notSupported;
 
     private RowMapper<LockData> lockDataRowMapper = (rs, rowNum) ->
             new LockData(rs.getString(1), rs.getString(2),
                     rs.getString(3), rs.getTimestamp(4).getTime());
 
-    public SpringLockManager(JdbcTemplate jdbcTemplate) {
+    public SpringLockManager(JdbcTemplate jdbcTemplate,
+                             LockLeaseCache leaseCache,
+                             PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.leaseCache = leaseCache;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.notSupported = new TransactionTemplate(transactionManager);
+        this.notSupported.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * 락이 없으면 넣고, 만료된 락이면 같은 문장에서 가져온다(insert ... on duplicate key update).
+     * 아직 유효한 락이면 행을 바꾸지 않고 LAST_INSERT_ID(1) 을 남긴다. MySQL 드라이버는 바뀌지 않은 행도
+     * 영향받은 행 수에 세므로 행 수 대신 이 값(generated key)으로 다른 노드가 잡은 락인지 구분한다.
+     * lockid 를 먼저 바꾸므로 두 조건 모두 아직 바뀌기 전인 expiration_time 을 기준으로 한다.
+     * 한 문장이므로 트랜잭션을 열지 않고 autocommit 으로 실행한다(MySQL 8.0.20+ 의 행 별칭 문법).
+     */
     @Override
     public LockId tryLock(String type, String id) throws LockException {
-        checkAlreadyLocked(type, id);
         LockId lockId = new LockId(UUID.randomUUID().toString());
-        locking(type, id, lockId);
+        long now = System.currentTimeMillis();
+        long expirationTime = now + lockTimeout;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            notSupported.executeWithoutResult(status -> jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(TRY_LOCK_SQL, Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, type);
+                ps.setString(2, id);
+                ps.setString(3, lockId.getValue());
+                ps.setTimestamp(4, new Timestamp(expirationTime));
+                ps.setTimestamp(5, new Timestamp(now));
+                ps.setTimestamp(6, new Timestamp(now));
+                return ps;
+            }, keyHolder));
+        } catch (DuplicateKeyException e) {
+            // lockid 가 겹친 경우
+            throw new LockingFailException(e);
+        }
+        if (!keyHolder.getKeyList().isEmpty()) throw new AlreadyLockedException();
+        leaseCache.put(lockId, expirationTime);
         return lockId;
     }
 
-    private void checkAlreadyLocked(String type, String id) {
-        List<LockData> locks = jdbcTemplate.query(
-                "select * from locks where type = ? and id = ?",
-                lockDataRowMapper, type, id);
-        Optional<LockData> lockData = handleExpiration(locks);
-        if (lockData.isPresent()) throw new AlreadyLockedException();
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
     }
 
     private Optional<LockData> handleExpiration(List<LockData> locks) {
         if (locks.isEmpty()) return Optional.empty();
         LockData lockData = locks.get(0);
         if (lockData.isExpired()) {
+            // 그 사이 다른 호출이 만료된 락을 가져갔으면 지우지 않는다
             jdbcTemplate.update(
-                    "delete from locks where type = ? and id = ?",
-                    lockData.getType(), lockData.getId());
+                    "delete from locks where type = ? and id = ? and lockid = ?",
+                    lockData.getType(), lockData.getId(), lockData.getLockId());
             return Optional.empty();
         } else {
             return Optional.of(lockData);
         }
     }
 
-    private void locking(String type, String id, LockId lockId) {
-        try {
-            int updatedCount = jdbcTemplate.update(
-                    "insert into locks values (?, ?, ?, ?)",
-                    type, id, lockId.getValue(), new Timestamp(getExpirationTime()));
-            if (updatedCount == 0) throw new LockingFailException();
-        } catch (DuplicateKeyException e) {
-            throw new LockingFailException(e);
-        }
-    }
-
-    private long getExpirationTime() {
-        return System.currentTimeMillis() + lockTimeout;
-    }
-
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * 이 노드가 잡은 락은 만료가 가깝지 않으면 만료 시각은 메모리로 판단하고, 행이 남아 있는지만 lockid 인덱스로 확인한다.
+     * releaseLock 은 다른 노드에서도 행을 지울 수 있으므로 행 확인은 생략하지 않는다.
+     * 호출한 쪽 트랜잭션의 스냅샷을 보지 않도록 트랜잭션 밖에서(autocommit) 한 문장으로 조회한다.
+     * 다른 노드가 잡았거나 만료가 가까운 락은 새 트랜잭션에서 만료까지 확인한다.
+     */
     @Override
     public void checkLock(LockId lockId) throws LockException {
-        Optional<LockData> lockData = getLockData(lockId);
+        if (leaseCache.isValid(lockId)) {
+            if (notSupported.execute(status -> lockRowExists(lockId))) return;
+            leaseCache.remove(lockId);
+            throw new NoLockException();
+        }
+        Optional<LockData> lockData = requiresNew.execute(status -> getLockData(lockId));
         if (!lockData.isPresent()) throw new NoLockException();
     }
 
+    private boolean lockRowExists(LockId lockId) {
+        return !jdbcTemplate.queryForList(
+                "select 1 from locks where lockid = ?", Integer.class, lockId.getValue()).isEmpty();
+    }
+
     private Optional<LockData> getLockData(LockId lockId) {
         List<LockData> locks = jdbcTemplate.query(
                 "select * from locks where lockid = ?",
@@ -90,15 +145,18 @@ public class SpringLockManager implements LockManager {
         Optional<LockData> lockDataOpt = getLockData(lockId);
         LockData lockData =
                 lockDataOpt.orElseThrow(() -> new NoLockException());
+        long expirationTime = lockData.getTimestamp() + inc;
         jdbcTemplate.update(
                 "update locks set expiration_time = ? where type = ? AND id = ?",
-                new Timestamp(lockData.getTimestamp() + inc),
+                new Timestamp(expirationTime),
                 lockData.getType(), lockData.getId());
+        afterCommit(() -> leaseCache.extend(lockId, expirationTime));
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
     public void releaseLock(LockId lockId) throws LockException {
+        leaseCache.remove(lockId);
         jdbcTemplate.update("delete from locks where lockid = ?", lockId.getValue());
     }
 
@@ -1,7 +1,9 @@
 package com.myshop.member.command.domain;
 
 import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
 
+@EventType("member.blocked")
 public class MemberBlockedEvent extends Event {
     private String memberId;
 
@@ -12,4 +14,9 @@ public class MemberBlockedEvent extends Event {
     public String getMemberId() {
         return memberId;
     }
+
+    @Override
+    public String aggregateKey() {
+        return memberId;
+    }
 }
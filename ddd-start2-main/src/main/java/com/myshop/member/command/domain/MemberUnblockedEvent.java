@@ -1,6 +1,10 @@
 package com.myshop.member.command.domain;
 
-public class MemberUnblockedEvent {
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
+@EventType("member.unblocked")
+public class MemberUnblockedEvent extends Event {
     private String memberId;
 
     public MemberUnblockedEvent(String memberId) {
@@ -10,4 +14,9 @@ public class MemberUnblockedEvent {
     public String getMemberId() {
         return memberId;
     }
+
+    @Override
+    public String aggregateKey() {
+        return memberId;
+    }
 }
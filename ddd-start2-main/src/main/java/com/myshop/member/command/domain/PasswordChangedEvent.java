@@ -1,6 +1,11 @@
 package com.myshop.member.command.domain;
 
-public class PasswordChangedEvent {
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
+@EventType("member.password-changed")
+public class PasswordChangedEvent extends Event {
     private String id;
     private String newPassword;
 
@@ -13,7 +18,14 @@ public class PasswordChangedEvent {
         return id;
     }
 
+    // 이벤트 저장소와 외부로 나가는 payload 에는 비밀번호를 남기지 않는다
+    @JsonIgnore
     public String getNewPassword() {
         return newPassword;
     }
+
+    @Override
+    public String aggregateKey() {
+        return id;
+    }
 }
@@ -51,7 +51,7 @@ public class Order {
         setShippingInfo(shippingInfo);
         this.state = state;
         this.orderDate = LocalDateTime.now();
-        Events.raise(new OrderPlacedEvent(number.getNumber(), orderer, orderLines, orderDate));
+        Events.raise(new OrderPlacedEvent(number.getNumber(), orderer, orderLines, shippingInfo, state, orderDate));
     }
 
     private void setNumber(OrderNo number) {
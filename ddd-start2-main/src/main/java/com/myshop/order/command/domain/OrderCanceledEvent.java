@@ -1,7 +1,9 @@
 package com.myshop.order.command.domain;
 
 import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
 
+@EventType("order.canceled")
 public class OrderCanceledEvent extends Event {
     private String orderNumber;
 
@@ -13,4 +15,9 @@ public class OrderCanceledEvent extends Event {
     public String getOrderNumber() {
         return orderNumber;
     }
+
+    @Override
+    public String aggregateKey() {
+        return orderNumber;
+    }
 }
@@ -1,22 +1,31 @@
 package com.myshop.order.command.domain;
 
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
 
-public class OrderPlacedEvent {
+@EventType("order.placed")
+public class OrderPlacedEvent extends Event {
     private String number;
     private Orderer orderer;
     private List<OrderLine> orderLines;
+    private ShippingInfo shippingInfo;
+    private OrderState state;
     private LocalDateTime orderDate;
 
     private OrderPlacedEvent() {
     }
 
-    public OrderPlacedEvent(String number, Orderer orderer, List<OrderLine> orderLines, LocalDateTime orderDate) {
+    public OrderPlacedEvent(String number, Orderer orderer, List<OrderLine> orderLines,
+                            ShippingInfo shippingInfo, OrderState state, LocalDateTime orderDate) {
         this.number = number;
         this.orderer = orderer;
         this.orderLines = orderLines;
+        this.shippingInfo = shippingInfo;
+        this.state = state;
         this.orderDate = orderDate;
     }
 
@@ -32,7 +41,20 @@ public class OrderPlacedEvent {
         return orderLines;
     }
 
+    public ShippingInfo getShippingInfo() {
+        return shippingInfo;
+    }
+
+    public OrderState getState() {
+        return state;
+    }
+
     public LocalDateTime getOrderDate() {
         return orderDate;
     }
+
+    @Override
+    public String aggregateKey() {
+        return number;
+    }
 }
@@ -1,15 +1,17 @@
 package com.myshop.order.command.domain;
 
-public class ShippingInfoChangedEvent {
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
+@EventType("order.shipping-info-changed")
+public class ShippingInfoChangedEvent extends Event {
     private final OrderNo number;
     private final ShippingInfo newShippingInfo;
-    private long timestamp;
 
     public ShippingInfoChangedEvent(OrderNo number, ShippingInfo newShippingInfo) {
         super();
         this.number = number;
         this.newShippingInfo = newShippingInfo;
-        this.timestamp = System.currentTimeMillis();
     }
 
     public OrderNo getNumber() {
@@ -20,7 +22,8 @@ public class ShippingInfoChangedEvent {
         return newShippingInfo;
     }
 
-    public long getTimestamp() {
-        return timestamp;
+    @Override
+    public String aggregateKey() {
+        return number.getNumber();
     }
 }
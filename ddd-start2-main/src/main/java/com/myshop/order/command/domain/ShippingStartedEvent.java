@@ -1,13 +1,23 @@
 package com.myshop.order.command.domain;
 
-public class ShippingStartedEvent {
+import com.myshop.common.event.Event;
+import com.myshop.common.event.EventType;
+
+@EventType("order.shipping-started")
+public class ShippingStartedEvent extends Event {
     private String orderNumber;
 
     public ShippingStartedEvent(String number) {
+        super();
         this.orderNumber = number;
     }
 
     public String getOrderNumber() {
         return orderNumber;
     }
+
+    @Override
+    public String aggregateKey() {
+        return orderNumber;
+    }
 }
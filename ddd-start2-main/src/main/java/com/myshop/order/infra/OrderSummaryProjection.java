@@ -0,0 +1,179 @@
+package com.myshop.order.infra;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.PayloadConvertException;
+import com.myshop.eventstore.api.Projection;
+import com.myshop.eventstore.infra.EventSerializer;
+import com.myshop.eventstore.infra.EventTypeRegistry;
+import com.myshop.order.command.domain.OrderCanceledEvent;
+import com.myshop.order.command.domain.OrderPlacedEvent;
+import com.myshop.order.command.domain.OrderState;
+import com.myshop.order.command.domain.ShippingInfoChangedEvent;
+import com.myshop.order.command.domain.ShippingStartedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 주문 이벤트로 order_summary 테이블을 만든다. 주문 목록 조회(OrderSummary)는 이 테이블을 읽는다.
+ * 한 묶음 안의 같은 주문 이벤트는 한 행 변경으로 합쳐서 쓰고, 행의 last_event_id 보다 오래된 변경은 건너뛰므로
+ * 같은 묶음을 다시 받아도 결과가 같다. version 은 주문 생성 뒤 받은 변경 이벤트 수로, Order 의 @Version 과 같다.
+ */
+@Component
+public class OrderSummaryProjection implements Projection {
+    public static final String NAME = "order-summary";
+
+    private static final String INSERT_SQL =
+            "insert into order_summary (order_number, version, orderer_id, orderer_name, total_amounts, " +
+                    "receiver_name, state, order_date, product_id, product_name, last_event_id) " +
+                    "values (?, ?, ?, ?, ?, ?, ?, ?, ?, (select name from product where product_id = ?), ?) " +
+                    "on duplicate key update order_number = order_number";
+    private static final String UPDATE_SQL =
+            "update order_summary set version = version + ?, state = coalesce(?, state), " +
+                    "receiver_name = coalesce(?, receiver_name), last_event_id = ? " +
+                    "where order_number = ? and last_event_id < ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private EventSerializer eventSerializer;
+    private ObjectMapper objectMapper;
+    private String placedType;
+    private String canceledType;
+    private String shippingInfoChangedType;
+    private String shippingStartedType;
+
+    public OrderSummaryProjection(JdbcTemplate jdbcTemplate,
+                                  EventSerializer eventSerializer,
+                                  ObjectMapper objectMapper,
+                                  EventTypeRegistry typeRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventSerializer = eventSerializer;
+        this.objectMapper = objectMapper;
+        this.placedType = typeRegistry.idOf(OrderPlacedEvent.class);
+        this.canceledType = typeRegistry.idOf(OrderCanceledEvent.class);
+        this.shippingInfoChangedType = typeRegistry.idOf(ShippingInfoChangedEvent.class);
+        this.shippingStartedType = typeRegistry.idOf(ShippingStartedEvent.class);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(placedType, canceledType, shippingInfoChangedType, shippingStartedType);
+    }
+
+    @Override
+    public void reset() {
+        jdbcTemplate.update("delete from order_summary");
+    }
+
+    @Transactional
+    @Override
+    public void apply(List<EventEntry> events) {
+        Map<String, SummaryChange> changes = new LinkedHashMap<>();
+        for (EventEntry entry : events) {
+            if (entry.getAggregateKey() == null) continue;
+            SummaryChange change = changes.computeIfAbsent(entry.getAggregateKey(), SummaryChange::new);
+            change.add(entry, eventSerializer.fromEntry(entry, JsonNode.class));
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (SummaryChange change : changes.values()) {
+            if (change.placed != null) {
+                inserts.add(change.insertArgs());
+            } else {
+                updates.add(change.updateArgs());
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+    }
+
+    private class SummaryChange {
+        private final String orderNumber;
+        private JsonNode placed;
+        private int changeCount;
+        private String state;
+        private String receiverName;
+        private long lastEventId;
+
+        SummaryChange(String orderNumber) {
+            this.orderNumber = orderNumber;
+        }
+
+        void add(EventEntry entry, JsonNode payload) {
+            String type = entry.getType();
+            if (type.equals(placedType)) {
+                placed = payload;
+                state = payload.path("state").asText(OrderState.PAYMENT_WAITING.name());
+                receiverName = textOrNull(payload.path("shippingInfo").path("receiver").path("name"));
+            } else {
+                changeCount++;
+                if (type.equals(canceledType)) {
+                    state = OrderState.CANCELED.name();
+                } else if (type.equals(shippingStartedType)) {
+                    state = OrderState.SHIPPED.name();
+                } else if (type.equals(shippingInfoChangedType)) {
+                    receiverName = textOrNull(payload.path("newShippingInfo").path("receiver").path("name"));
+                }
+            }
+            lastEventId = entry.getId();
+        }
+
+        Object[] insertArgs() {
+            JsonNode lines = placed.path("orderLines");
+            int totalAmounts = 0;
+            for (JsonNode line : lines) {
+                totalAmounts += line.path("amounts").path("value").asInt();
+            }
+            String productId = textOrNull(lines.path(0).path("productId").path("id"));
+            LocalDateTime orderDate = toDateTime(placed.path("orderDate"));
+            return new Object[]{
+                    orderNumber, changeCount,
+                    textOrNull(placed.path("orderer").path("memberId").path("id")),
+                    textOrNull(placed.path("orderer").path("name")),
+                    totalAmounts, receiverName, state,
+                    orderDate == null ? null : Timestamp.valueOf(orderDate),
+                    productId, productId, lastEventId
+            };
+        }
+
+        Object[] updateArgs() {
+            return new Object[]{changeCount, state, receiverName, lastEventId, orderNumber, lastEventId};
+        }
+    }
+
+    // 직렬화 설정에 따라 문자열이나 배열로 저장되므로 ObjectMapper 로 읽는다
+    private LocalDateTime toDateTime(JsonNode node) {
+        if (node.isMissingNode() || node.isNull()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(node, LocalDateTime.class);
+        } catch (JsonProcessingException e) {
+            throw new PayloadConvertException(e);
+        }
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,12 +28,14 @@ public class OrderDetailService {
     public Optional<OrderDetail> getOrderDetail(String orderNumber) {
         Optional<Order> orderOpt = orderRepository.findById(new OrderNo(orderNumber));
         return orderOpt.map(order -> {
+            Map<String, ProductData> products = productQueryService.getProducts(
+                    order.getOrderLines().stream()
+                            .map(orderLine -> orderLine.getProductId().getId())
+                            .collect(Collectors.toList()));
             List<OrderLineDetail> orderLines = order.getOrderLines().stream()
-                    .map(orderLine -> {
-                        Optional<ProductData> productOpt =
-                                productQueryService.getProduct(orderLine.getProductId().getId());
-                        return new OrderLineDetail(orderLine, productOpt.orElse(null));
-                    }).collect(Collectors.toList());
+                    .map(orderLine -> new OrderLineDetail(orderLine,
+                            products.get(orderLine.getProductId().getId())))
+                    .collect(Collectors.toList());
             return new OrderDetail(order, orderLines);
         });
     }
@@ -1,38 +1,22 @@
 package com.myshop.order.query.dto;
 
 import org.hibernate.annotations.Immutable;
-import org.hibernate.annotations.Subselect;
-import org.hibernate.annotations.Synchronize;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Table;
 import java.time.LocalDateTime;
 
+/**
+ * 주문 목록 조회 모델. {@link com.myshop.order.infra.OrderSummaryProjection} 이 주문 이벤트로 채우는 order_summary 를 읽는다.
+ */
 @Entity
 @Immutable
-@Subselect(
-        """
-        select o.order_number as number,
-        o.version,
-        o.orderer_id,
-        o.orderer_name,
-        o.total_amounts,
-        o.receiver_name,
-        o.state,
-        o.order_date,
-        p.product_id,
-        p.name as product_name
-        from purchase_order o inner join order_line ol
-            on o.order_number = ol.order_number
-            cross join product p
-        where
-        ol.line_idx = 0
-        and ol.product_id = p.product_id"""
-)
-@Synchronize({"purchase_order", "order_line", "product"})
+@Table(name = "order_summary")
 public class OrderSummary {
     @Id
+    @Column(name = "order_number")
     private String number;
     private long version;
     @Column(name = "orderer_id")
@@ -35,6 +35,23 @@ create table shop.order_line (
 
 create index order_line_idx ON order_line (order_number, line_idx);
 
+-- OrderSummaryProjection 이 주문 이벤트로 채우는 주문 목록 조회 모델
+create table shop.order_summary (
+  order_number varchar(50) not null primary key,
+  version bigint,
+  orderer_id varchar(50),
+  orderer_name varchar(50),
+  total_amounts int,
+  receiver_name varchar(50),
+  state varchar(20),
+  order_date datetime,
+  product_id varchar(50),
+  product_name varchar(100),
+  last_event_id bigint not null
+) character set utf8mb4;
+
+create index order_summary_orderer_idx ON order_summary (orderer_id, order_date);
+
 create table shop.category (
   category_id bigint not null primary key,
   name varchar(100)
@@ -91,16 +108,62 @@ create table shop.evententry (
   id int not null AUTO_INCREMENT PRIMARY KEY,
   `type` varchar(255),
   `content_type` varchar(255),
-  payload MEDIUMTEXT,
+  payload MEDIUMBLOB,
+  aggregate_key varchar(100),
   `timestamp` datetime
+) character set utf8mb4
+partition by range (id) (
+  partition p0 values less than (1000001),
+  partition pmax values less than maxvalue
+);
+
+create table shop.event_segment (
+  segment_no bigint not null primary key,
+  first_id bigint not null,
+  last_id bigint not null,
+  event_count bigint not null,
+  file_name varchar(255) not null,
+  archived_time datetime
 ) character set utf8mb4;
 
 create table shop.locks (
-  `type` varchar(255),
-  id varchar(255),
-  lockid varchar(255),
-  expiration_time datetime,
+  `type` varchar(255) not null,
+  id varchar(255) not null,
+  lockid varchar(255) not null,
+  expiration_time datetime not null,
   primary key (`type`, id)
 ) character set utf8mb4;
 
-create unique index locks_idx ON shop.locks (lockid);
\ No newline at end of file
+create unique index locks_idx ON shop.locks (lockid);
+create index locks_expiration_idx ON shop.locks (expiration_time);
+
+create table shop.event_offset (
+  consumer varchar(100) not null,
+  partition_no int not null,
+  last_event_id bigint not null,
+  updated_time datetime,
+  owner varchar(100),
+  lease_until datetime,
+  primary key (consumer, partition_no)
+) character set utf8mb4;
+
+create table shop.event_dead_letter (
+  id bigint not null AUTO_INCREMENT PRIMARY KEY,
+  consumer varchar(100) not null,
+  partition_no int not null,
+  event_id bigint not null,
+  `type` varchar(255),
+  `content_type` varchar(255),
+  payload MEDIUMBLOB,
+  aggregate_key varchar(100),
+  attempts int not null,
+  last_error varchar(1000),
+  failed_time datetime,
+  unique key event_dead_letter_idx (consumer, event_id)
+) character set utf8mb4;
+
+create table shop.projection_checkpoint (
+  name varchar(100) not null primary key,
+  last_event_id bigint not null,
+  updated_time datetime
+) character set utf8mb4;
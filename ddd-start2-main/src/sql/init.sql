@@ -2,6 +2,7 @@ use shop;
 
 truncate table purchase_order;
 truncate table order_line;
+truncate table order_summary;
 truncate table category;
 truncate table product_category;
 truncate table product;
@@ -11,6 +12,7 @@ truncate table member_authorities;
 truncate table article;
 truncate table article_content;
 truncate table evententry;
+truncate table projection_checkpoint;
 
 insert into member (member_id, name, password, blocked) values ('user1', '사용자1', '1234', false);
 insert into member (member_id, name, password, blocked) values ('user2', '사용자2', '5678', false);
@@ -0,0 +1,83 @@
+package com.myshop.catalog.infra;
+
+import com.myshop.catalog.query.product.ProductCache;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.infra.EventTail;
+import com.myshop.eventstore.infra.EventTypeRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductChangedEventHandlerTest {
+    private MemoryEventStore eventStore = new MemoryEventStore();
+    private EventTail eventTail = new EventTail(eventStore);
+    private ProductCache productCache = new ProductCache(new SimpleMeterRegistry(), 100, 600, 100, 60);
+    private ProductChangedEventHandler handler =
+            new ProductChangedEventHandler(productCache, eventTail, eventStore, new EventTypeRegistry());
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        handler.unsubscribe();
+        eventTail.shutdown();
+    }
+
+    @Test
+    void evictsProductChangedOnOtherNode() throws InterruptedException {
+        eventStore.add("product.price-changed", "old-product");
+        handler.subscribe();
+        long generation = productCache.generation();
+
+        // 다른 노드가 저장한 이벤트는 poll 로 받는다
+        eventStore.add("order.placed", "order-1");
+        eventTail.pollStore();
+        Thread.sleep(200);
+        assertThat(productCache.generation()).isEqualTo(generation);
+
+        eventStore.add("product.price-changed", "prod-1");
+        eventTail.pollStore();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (productCache.generation() == generation && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(productCache.generation()).isEqualTo(generation + 1);
+    }
+
+    private static class MemoryEventStore implements EventStore {
+        private List<EventEntry> entries = new CopyOnWriteArrayList<>();
+
+        void add(String type, String aggregateKey) {
+            entries.add(new EventEntry((long) entries.size() + 1, type, "application/json", "{}",
+                    aggregateKey, System.currentTimeMillis()));
+        }
+
+        @Override
+        public void save(Object event) {
+        }
+
+        @Override
+        public void saveAll(List<?> events) {
+        }
+
+        @Override
+        public List<EventEntry> get(long offset, long limit) {
+            return entries.stream().skip(offset).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<EventEntry> getAfter(long lastId, long limit) {
+            return entries.stream().filter(e -> e.getId() > lastId).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public long getLastId() {
+            return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getId();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.myshop.catalog.query.product;
+
+import com.myshop.catalog.command.domain.product.InternalImage;
+import com.myshop.catalog.command.domain.product.Product;
+import com.myshop.catalog.command.domain.product.ProductId;
+import com.myshop.catalog.command.domain.product.ProductRepository;
+import com.myshop.common.model.Money;
+import com.myshop.helper.DbHelper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductQueryServiceIT {
+    @Autowired
+    private ProductQueryService productQueryService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductCache productCache;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DbHelper dbHelper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        dbHelper.clear();
+        productCache.invalidateAll();
+        jdbcTemplate.update("insert into category values (?, ?)", 1, "카테고리1");
+        jdbcTemplate.update("insert into product values (?,?,?,?)", "PROD-01", "PRD 1", 10000, "상세");
+        jdbcTemplate.update("insert into image (product_id, list_idx, image_type, image_path, upload_time) " +
+                "values (?,?,?,?,?)", "PROD-01", 0, "EI", "http://images.img/img.01.png", LocalDateTime.now());
+        jdbcTemplate.update("insert into product_category values (?, ?)", "PROD-01", 1);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void 카테고리_페이지는_두_번째_조회부터_DB_를_보지_않음() {
+        CategoryProduct first = productQueryService.getProductInCategory(1L, 1, 10);
+        statistics.clear();
+
+        CategoryProduct second = productQueryService.getProductInCategory(1L, 1, 10);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getTransactionCount()).isZero();
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void 가격이_바뀌면_상품과_페이지를_다시_읽음() {
+        productQueryService.getProductInCategory(1L, 1, 10);
+        productQueryService.getProduct("PROD-01");
+
+        transactionTemplate.executeWithoutResult(status ->
+                productRepository.findById(ProductId.of("PROD-01")).get().changePrice(new Money(20000)));
+
+        assertThat(productQueryService.getProductInCategory(1L, 1, 10).getItems().get(0).getPrice())
+                .isEqualTo(20000);
+        assertThat(productQueryService.getProduct("PROD-01").get().getPrice().getValue())
+                .isEqualTo(20000);
+    }
+
+    @Test
+    void 이미지가_바뀌면_상품을_다시_읽음() {
+        productQueryService.getProduct("PROD-01");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findById(ProductId.of("PROD-01")).get();
+            product.changeImages(List.of(new InternalImage("img.02.png")));
+        });
+
+        assertThat(productQueryService.getProduct("PROD-01").get().getFirstIamgeThumbnailPath())
+                .isEqualTo("/images/thumbnail/img.02.png");
+    }
+
+    @Test
+    void 여러_상품_조회는_캐시에_없는_것만_읽음() {
+        jdbcTemplate.update("insert into product values (?,?,?,?)", "PROD-02", "PRD 2", 10000, "상세");
+        productQueryService.getProduct("PROD-01");
+        statistics.clear();
+
+        assertThat(productQueryService.getProducts(List.of("PROD-01", "PROD-02", "PROD-99")))
+                .containsOnlyKeys("PROD-01", "PROD-02");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void 캐시에는_영속_컨텍스트와_분리된_사본을_넣음() {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProductData product = productQueryService.getProduct("PROD-01").get();
+            ProductData fromList = productQueryService.getProducts(List.of("PROD-01")).get("PROD-01");
+
+            assertThat(entityManager.contains(product)).isFalse();
+            assertThat(productCache.getProduct("PROD-01")).isSameAs(product).isSameAs(fromList);
+            assertThat(product.getImages()).hasSize(1);
+        });
+        productCache.invalidateAll();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productQueryService.getProducts(List.of("PROD-01"));
+            assertThat(entityManager.contains(productCache.getProduct("PROD-01"))).isFalse();
+
+            CategoryProduct page = productQueryService.getProductInCategory(1L, 1, 10);
+            assertThat(entityManager.contains(page.getCategory())).isFalse();
+        });
+    }
+}
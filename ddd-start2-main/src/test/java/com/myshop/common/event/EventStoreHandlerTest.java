@@ -0,0 +1,123 @@
+package com.myshop.common.event;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.infra.BufferedEventAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventStoreHandlerTest {
+    private RecordingEventStore eventStore = new RecordingEventStore();
+    private BufferedEventAppender appender = new BufferedEventAppender(eventStore, 100, 10, 100);
+    private EventStoreHandler handler = new EventStoreHandler(eventStore, appender, EventAppendMode.AFTER_COMMIT);
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        appender.shutdown();
+    }
+
+    @Test
+    void committedEventsAreAppendedAfterCommit() throws InterruptedException {
+        SampleEvent event = new SampleEvent("committed");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            handler.handle(event);
+            assertThat(eventStore.appended).isEmpty();
+        });
+        appender.shutdown();
+
+        assertThat(eventStore.appended).containsExactly(event);
+    }
+
+    @Test
+    void rolledBackEventsAreNotAppended() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            handler.handle(new SampleEvent("rolled-back"));
+            status.setRollbackOnly();
+        });
+        appender.shutdown();
+
+        assertThat(eventStore.appended).isEmpty();
+    }
+
+    @Test
+    void eventsOutsideTransactionAreAppendedRightAway() throws InterruptedException {
+        SampleEvent event = new SampleEvent("no-tx");
+
+        handler.handle(event);
+        appender.shutdown();
+
+        assertThat(eventStore.appended).containsExactly(event);
+    }
+
+    private static class SampleEvent extends Event {
+        private String value;
+
+        SampleEvent(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    // 커밋/롤백 시점의 synchronization 콜백만 확인하므로 실제 리소스는 없다
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private static class RecordingEventStore implements EventStore {
+        private List<Object> appended = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void save(Object event) {
+            appended.add(event);
+        }
+
+        @Override
+        public void saveAll(List<?> events) {
+            appended.addAll(events);
+        }
+
+        @Override
+        public List<EventEntry> get(long offset, long limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<EventEntry> getAfter(long lastId, long limit) {
+            return List.of();
+        }
+
+        @Override
+        public long getLastId() {
+            return 0;
+        }
+    }
+}
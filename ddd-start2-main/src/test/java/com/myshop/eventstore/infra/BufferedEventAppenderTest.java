@@ -0,0 +1,148 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BufferedEventAppenderTest {
+    private BlockingEventStore eventStore = new BlockingEventStore();
+    private BufferedEventAppender appender;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventStore.release.countDown();
+        appender.shutdown();
+    }
+
+    @Test
+    void fullBufferBlocksCallerAndKeepsOrder() throws InterruptedException {
+        appender = new BufferedEventAppender(eventStore, 2, 1, 10);
+        eventStore.block();
+
+        appender.append("e1");
+        // worker 가 e1 을 꺼내서 저장하다 막혀 있는 동안 큐(2칸)를 채운다
+        assertThat(eventStore.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        appender.append("e2");
+        appender.append("e3");
+        CountDownLatch appended = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            appender.append("e4");
+            appended.countDown();
+        }, "caller");
+        caller.start();
+
+        // 큐에 있는 이벤트보다 먼저 저장하지 않고 기다린다
+        assertThat(appended.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(eventStore.appended).isEmpty();
+
+        eventStore.release.countDown();
+        assertThat(appended.await(5, TimeUnit.SECONDS)).isTrue();
+        appender.shutdown();
+        assertThat(eventStore.appended).containsExactly("e1", "e2", "e3", "e4");
+    }
+
+    @Test
+    void failedBatchIsRetriedNotDropped() throws InterruptedException {
+        appender = new BufferedEventAppender(eventStore, 1000, 50, 100);
+        eventStore.failures.set(3);
+
+        for (int i = 0; i < 100; i++) {
+            appender.append("e" + i);
+        }
+        appender.shutdown();
+
+        assertThat(eventStore.failures.get()).isZero();
+        assertThat(eventStore.appended).hasSize(100).isEqualTo(
+                IntStream.range(0, 100).mapToObj(i -> "e" + i).collect(Collectors.toList()));
+    }
+
+    @Test
+    void shutdownFlushesBufferedEvents() throws InterruptedException {
+        appender = new BufferedEventAppender(eventStore, 1000, 50, 100);
+        for (int i = 0; i < 500; i++) {
+            appender.append("e" + i);
+        }
+
+        appender.shutdown();
+
+        assertThat(eventStore.appended).hasSize(500);
+    }
+
+    @Test
+    void eventsAfterShutdownAreSavedDirectly() throws InterruptedException {
+        appender = new BufferedEventAppender(eventStore, 1000, 50, 100);
+        appender.shutdown();
+
+        appender.append("late");
+
+        assertThat(eventStore.appended).containsExactly("late");
+        assertThat(eventStore.savedBy.get("late")).isEqualTo(Thread.currentThread().getName());
+    }
+
+    private static class BlockingEventStore implements EventStore {
+        private List<Object> appended = new CopyOnWriteArrayList<>();
+        private Map<Object, String> savedBy = new ConcurrentHashMap<>();
+        private CountDownLatch entered = new CountDownLatch(1);
+        private CountDownLatch release = new CountDownLatch(0);
+        private AtomicInteger failures = new AtomicInteger();
+
+        void block() {
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public void save(Object event) {
+            record(List.of(event));
+        }
+
+        @Override
+        public void saveAll(List<?> events) {
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new TransientDataAccessResourceException("event store down");
+            }
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            record(events);
+        }
+
+        private void record(List<?> events) {
+            for (Object event : events) {
+                appended.add(event);
+                savedBy.put(event, Thread.currentThread().getName());
+            }
+        }
+
+        @Override
+        public List<EventEntry> get(long offset, long limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<EventEntry> getAfter(long lastId, long limit) {
+            return List.of();
+        }
+
+        @Override
+        public long getLastId() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.helper.SampleEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EventArchiverIT {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EventSerializer eventSerializer;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path archiveDir;
+
+    private EventSegmentStore segmentStore;
+    private JdbcEventStore eventStore;
+    private EventArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("truncate table evententry");
+        jdbcTemplate.update("delete from event_segment");
+        jdbcTemplate.update("delete from event_offset");
+
+        segmentStore = new EventSegmentStore(jdbcTemplate, archiveDir.toString());
+        segmentStore.load();
+        eventStore = new JdbcEventStore(eventSerializer, jdbcTemplate, eventPublisher, segmentStore);
+        archiver = archiver("c1");
+    }
+
+    private EventArchiver archiver(String... consumers) {
+        return new EventArchiver(jdbcTemplate, segmentStore, true, 10, consumers, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        segmentStore.close();
+        jdbcTemplate.update("delete from event_segment");
+        jdbcTemplate.update("delete from event_offset");
+    }
+
+    @Test
+    void 모든_consumer_가_보낸_구간만_보관() {
+        for (int i = 1; i <= 25; i++) {
+            eventStore.save(new SampleEvent("value" + i));
+        }
+        jdbcTemplate.update("insert into event_offset (consumer, partition_no, last_event_id, updated_time) values ('c1', 0, 23, now()), ('c2', 0, 20, now())");
+
+        archiver("c1", "c2").archive();
+
+        assertThat(segmentStore.getSegments()).hasSize(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from evententry", Long.class)).isEqualTo(5L);
+        assertThat(ids(eventStore.get(0, 100))).isEqualTo(range(1, 25));
+        assertThat(ids(eventStore.get(8, 5))).isEqualTo(range(9, 13));
+        assertThat(ids(eventStore.get(18, 4))).isEqualTo(range(19, 22));
+        assertThat(ids(eventStore.getAfter(15, 3))).isEqualTo(range(16, 18));
+        assertThat(ids(eventStore.getAfter(19, 3))).isEqualTo(range(20, 22));
+        assertThat(eventStore.getAfter(25, 10)).isEmpty();
+    }
+
+    @Test
+    void 설정에_없는_consumer_와_파티션의_offset_은_보지_않음() {
+        for (int i = 1; i <= 12; i++) {
+            eventStore.save(new SampleEvent("value" + i));
+        }
+        jdbcTemplate.update("insert into event_offset (consumer, partition_no, last_event_id, updated_time) values ('c1', 0, 12, now()), ('c1', 3, 0, now()), ('old', 0, 0, now())");
+
+        archiver.archive();
+
+        assertThat(segmentStore.getSegments()).hasSize(1);
+    }
+
+    @Test
+    void 설정된_offset_이_없으면_보관하지_않음() {
+        for (int i = 1; i <= 12; i++) {
+            eventStore.save(new SampleEvent("value" + i));
+        }
+        jdbcTemplate.update("insert into event_offset (consumer, partition_no, last_event_id, updated_time) values ('c1', 0, 12, now())");
+
+        archiver("c1", "c2").archive();
+
+        assertThat(segmentStore.getSegments()).isEmpty();
+    }
+
+    @Test
+    void 다시_실행해도_같은_구간을_두번_보관하지_않음() {
+        for (int i = 1; i <= 12; i++) {
+            eventStore.save(new SampleEvent("value" + i));
+        }
+        jdbcTemplate.update("insert into event_offset (consumer, partition_no, last_event_id, updated_time) values ('c1', 0, 12, now())");
+
+        archiver.archive();
+        archiver.archive();
+
+        assertThat(segmentStore.getSegments()).hasSize(1);
+        assertThat(ids(eventStore.getAfter(0, 100))).isEqualTo(range(1, 12));
+    }
+
+    @Test
+    void 페이지를_이어서_읽으면_세그먼트를_처음부터_다시_풀지_않음() {
+        for (int i = 1; i <= 25; i++) {
+            eventStore.save(new SampleEvent("value" + i));
+        }
+        jdbcTemplate.update("insert into event_offset (consumer, partition_no, last_event_id, updated_time) values ('c1', 0, 20, now())");
+        archiver.archive();
+
+        List<Long> byOffset = new ArrayList<>();
+        for (int offset = 0; offset < 25; offset += 3) {
+            byOffset.addAll(ids(eventStore.get(offset, 3)));
+            if (offset == 3) {
+                // 첫 세그먼트를 중간까지 읽은 스트림이 남아 있다
+                assertThat(segmentStore.openCursors()).isEqualTo(1);
+            }
+        }
+        assertThat(byOffset).isEqualTo(range(1, 25));
+
+        List<Long> byId = new ArrayList<>();
+        long after = 0;
+        List<EventEntry> page;
+        while (!(page = eventStore.getAfter(after, 4)).isEmpty()) {
+            byId.addAll(ids(page));
+            after = page.get(page.size() - 1).getId();
+        }
+        assertThat(byId).isEqualTo(range(1, 25));
+    }
+
+    private List<Long> ids(List<EventEntry> entries) {
+        return entries.stream().map(EventEntry::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> range(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+}
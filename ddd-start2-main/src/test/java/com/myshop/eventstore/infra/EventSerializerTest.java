@@ -0,0 +1,36 @@
+package com.myshop.eventstore.infra;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.helper.SampleEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSerializerTest {
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private EventSerializer serializer = new EventSerializer(new EventTypeRegistry(), objectMapper,
+            Jackson2ObjectMapperBuilder.json(), "smile");
+
+    @Test
+    void smilePayloadIsExportedAsJson() throws Exception {
+        EventEntry stored = serializer.toEntry(new SampleEvent("value1"));
+        assertThat(stored.hasTextPayload()).isFalse();
+
+        EventEntry exported = serializer.toJson(stored);
+
+        assertThat(exported.getContentType()).isEqualTo(JacksonPayloadCodec.JSON);
+        assertThat(exported.getType()).isEqualTo(stored.getType());
+        JsonNode payload = objectMapper.readTree(exported.getPayload());
+        assertThat(payload.get("value").asText()).isEqualTo("value1");
+    }
+
+    @Test
+    void jsonPayloadIsExportedAsIs() {
+        EventEntry stored = new EventEntry(1L, "type", JacksonPayloadCodec.JSON, "{\"value\":\"v\"}", null, 1L);
+
+        assertThat(serializer.toJson(stored)).isSameAs(stored);
+    }
+}
@@ -0,0 +1,134 @@
+package com.myshop.eventstore.infra;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.helper.SampleEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EventTailIT {
+    @Autowired
+    private EventTail eventTail;
+    @Autowired
+    private JdbcEventStore eventStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EventSerializer eventSerializer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("truncate table evententry");
+    }
+
+    @Test
+    void 이미_있는_이벤트는_바로_전달() throws InterruptedException {
+        eventStore.save(new SampleEvent("a"));
+
+        CountDownLatch latch = new CountDownLatch(1);
+        List<EventEntry> received = new CopyOnWriteArrayList<>();
+        eventTail.subscribe(0, 10, true, entries -> {
+            received.addAll(entries);
+            latch.countDown();
+        });
+
+        assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void 저장_알림으로_대기중인_구독자_모두_깨움() throws InterruptedException {
+        eventStore.save(new SampleEvent("a"));
+        long last = eventStore.getAfter(0, 10).get(0).getId();
+
+        int subscriberCount = 100;
+        CountDownLatch latch = new CountDownLatch(subscriberCount);
+        List<EventTail.Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < subscriberCount; i++) {
+            subscriptions.add(eventTail.subscribe(last, 10, true, entries -> {
+                if (eventSerializer.fromEntry(entries.get(0), JsonNode.class).get("value").asText().equals("b")) {
+                    latch.countDown();
+                }
+            }));
+        }
+        assertThat(latch.getCount()).isEqualTo(subscriberCount);
+
+        eventStore.save(new SampleEvent("b"));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(eventTail.getSubscriberCount()).isZero();
+        subscriptions.forEach(EventTail.Subscription::close);
+    }
+
+    @Test
+    void 구독자가_없을_때_저장된_이벤트도_구독하면_바로_전달() throws InterruptedException {
+        eventStore.save(new SampleEvent("a"));
+        long last = eventStore.getAfter(0, 10).get(0).getId();
+        awaitOnce(last - 1);
+
+        eventStore.save(new SampleEvent("b"));
+
+        List<EventEntry> received = awaitOnce(last);
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).getId()).isGreaterThan(last);
+    }
+
+    @Test
+    void 다른_노드가_저장한_이벤트는_주기적으로_조회해서_전달() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        eventTail.subscribe(0, 10, true, entries -> latch.countDown());
+
+        // 다른 노드의 저장: 이 노드에는 EventsAppended 가 오지 않는다
+        EventEntry entry = eventSerializer.toEntry(new SampleEvent("remote"));
+        jdbcTemplate.update("insert into evententry (type, content_type, payload, aggregate_key, timestamp) " +
+                        "values (?, ?, ?, ?, now())",
+                entry.getType(), entry.getContentType(), entry.payloadBytes(), entry.getAggregateKey());
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void 느린_구독자가_다른_구독자_전달을_막지_않음() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        EventTail.Subscription slow = eventTail.subscribe(0, 10, false, entries -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch fast = new CountDownLatch(2);
+        EventTail.Subscription other = eventTail.subscribe(0, 10, false, entries -> entries.forEach(e -> fast.countDown()));
+
+        eventStore.save(new SampleEvent("a"));
+        eventStore.save(new SampleEvent("b"));
+
+        assertThat(fast.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        slow.close();
+        other.close();
+    }
+
+    private List<EventEntry> awaitOnce(long after) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<EventEntry> received = new CopyOnWriteArrayList<>();
+        eventTail.subscribe(after, 10, true, entries -> {
+            received.addAll(entries);
+            latch.countDown();
+        });
+        assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+        return received;
+    }
+}
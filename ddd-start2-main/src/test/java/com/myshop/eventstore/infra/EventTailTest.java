@@ -0,0 +1,124 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventTailTest {
+    private CountingEventStore eventStore = new CountingEventStore();
+    private EventTail eventTail = new EventTail(eventStore);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventTail.shutdown();
+    }
+
+    @Test
+    void busySubscriberDoesNotHoldBackOthers() throws InterruptedException {
+        append(1, 3000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        AtomicLong slowLast = new AtomicLong();
+        eventTail.subscribe(0, 10, false, entries -> {
+            slowStarted.countDown();
+            await(release);
+            slowLast.set(entries.get(entries.size() - 1).getId());
+        });
+        assertThat(slowStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        CountDownLatch headReceived = new CountDownLatch(1);
+        eventTail.subscribe(3000, 10, false, entries -> headReceived.countDown());
+        eventStore.fetches.set(0);
+
+        append(3001, 3001);
+        eventTail.pollStore();
+
+        // listener 호출 중인 구독자 커서(10)부터 1000 건씩 반복해서 읽지 않는다
+        assertThat(headReceived.await(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+        assertThat(eventStore.fetches.get()).isEqualTo(1);
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slowLast.get() < 3001 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(slowLast.get()).isEqualTo(3001);
+    }
+
+    @Test
+    void onlyBusySubscribersAreNotQueried() throws InterruptedException {
+        append(1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        eventTail.subscribe(0, 10, false, entries -> await(release));
+        eventStore.fetches.set(0);
+
+        eventTail.pollStore();
+        Thread.sleep(200);
+
+        assertThat(eventStore.fetches.get()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void rejectsInvalidLimit() {
+        assertThatThrownBy(() -> eventTail.subscribe(0, 0, true, entries -> {
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> eventTail.subscribe(0, 1001, true, entries -> {
+        })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void append(long from, long to) {
+        for (long id = from; id <= to; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", null, id));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class CountingEventStore implements EventStore {
+        private List<EventEntry> entries = new CopyOnWriteArrayList<>();
+        private AtomicInteger fetches = new AtomicInteger();
+
+        @Override
+        public void save(Object event) {
+        }
+
+        @Override
+        public void saveAll(List<?> events) {
+        }
+
+        @Override
+        public List<EventEntry> get(long offset, long limit) {
+            return entries.stream().skip(offset).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<EventEntry> getAfter(long lastId, long limit) {
+            fetches.incrementAndGet();
+            return entries.stream().filter(e -> e.getId() > lastId).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public long getLastId() {
+            return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getId();
+        }
+    }
+}
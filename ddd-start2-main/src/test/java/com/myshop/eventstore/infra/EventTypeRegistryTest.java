@@ -0,0 +1,28 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.PayloadConvertException;
+import com.myshop.helper.SampleEvent;
+import com.myshop.order.command.domain.OrderCanceledEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventTypeRegistryTest {
+    private EventTypeRegistry registry = new EventTypeRegistry();
+
+    @Test
+    void eventClassNameIsResolved() {
+        assertThat(registry.classOf(OrderCanceledEvent.class.getName())).isEqualTo(OrderCanceledEvent.class);
+    }
+
+    @Test
+    void classNameOfNonEventIsRejected() {
+        assertThatThrownBy(() -> registry.classOf(SampleEvent.class.getName()))
+                .isInstanceOf(PayloadConvertException.class);
+        assertThatThrownBy(() -> registry.classOf("java.lang.ProcessBuilder"))
+                .isInstanceOf(PayloadConvertException.class);
+        assertThatThrownBy(() -> registry.classOf("com.myshop.NoSuchEvent"))
+                .isInstanceOf(PayloadConvertException.class);
+    }
+}
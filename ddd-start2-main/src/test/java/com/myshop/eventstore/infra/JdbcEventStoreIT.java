@@ -0,0 +1,103 @@
+package com.myshop.eventstore.infra;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.helper.SampleEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class JdbcEventStoreIT {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private JdbcEventStore eventStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EventSerializer eventSerializer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("truncate table evententry");
+    }
+
+    @Test
+    void getAfter() {
+        for (int i = 0; i < 5; i++) {
+            eventStore.save(new SampleEvent("value" + i));
+        }
+
+        List<EventEntry> first = eventStore.getAfter(0, 2);
+        assertThat(first).hasSize(2);
+
+        List<EventEntry> next = eventStore.getAfter(first.get(1).getId(), 10);
+        assertThat(next).hasSize(3);
+        assertThat(next.get(0).getId()).isGreaterThan(first.get(1).getId());
+        assertThat(eventStore.getAfter(next.get(2).getId(), 10)).isEmpty();
+    }
+
+    @Test
+    void 예전_JSON_행도_읽는다() {
+        jdbcTemplate.update(
+                "insert into evententry (type, content_type, payload, timestamp) values (?, ?, ?, now())",
+                SampleEvent.class.getName(), "application/json", "{\"value\":\"old\"}");
+
+        EventEntry entry = eventStore.getAfter(0, 1).get(0);
+        assertThat(entry.getPayload()).isEqualTo("{\"value\":\"old\"}");
+        assertThat(eventSerializer.fromEntry(entry, JsonNode.class).get("value").asText()).isEqualTo("old");
+    }
+
+    @Test
+    void saveAll() {
+        eventStore.saveAll(List.of(new SampleEvent("a"), new SampleEvent("b"), new SampleEvent("c")));
+
+        List<EventEntry> entries = eventStore.getAfter(0, 10);
+        assertThat(entries).hasSize(3);
+        assertThat(eventSerializer.fromEntry(entries.get(0), JsonNode.class).get("value").asText()).isEqualTo("a");
+        assertThat(eventSerializer.fromEntry(entries.get(2), JsonNode.class).get("value").asText()).isEqualTo("c");
+    }
+
+    /**
+     * 10M 건을 넣고 앞/중간/끝 위치에서 offset 조회와 id 커서 조회 시간을 비교한다.
+     * -Dbenchmark=true 일 때만 실행한다.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void readCostAt10MRows() {
+        int total = 10_000_000;
+        int chunk = 10_000;
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < chunk; i++) {
+            if (i > 0) values.append(',');
+            values.append("('bench', 'application/json', '{}', now())");
+        }
+        String insert = "insert into evententry (type, content_type, payload, timestamp) values " + values;
+        for (int i = 0; i < total / chunk; i++) {
+            jdbcTemplate.update(insert);
+        }
+
+        for (long position : new long[]{0, total / 2, total - 100}) {
+            long start = System.nanoTime();
+            eventStore.get(position, 100);
+            long offsetNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            eventStore.getAfter(position, 100);
+            long cursorNanos = System.nanoTime() - start;
+
+            logger.info("position={} offset={}ms cursor={}ms",
+                    position, offsetNanos / 1_000_000.0, cursorNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.myshop.eventstore.infra;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.myshop.catalog.command.domain.product.ProductId;
+import com.myshop.common.model.Address;
+import com.myshop.common.model.Money;
+import com.myshop.eventstore.api.PayloadCodec;
+import com.myshop.member.command.domain.MemberId;
+import com.myshop.order.command.domain.OrderLine;
+import com.myshop.order.command.domain.OrderNo;
+import com.myshop.order.command.domain.OrderPlacedEvent;
+import com.myshop.order.command.domain.OrderState;
+import com.myshop.order.command.domain.Orderer;
+import com.myshop.order.command.domain.Receiver;
+import com.myshop.order.command.domain.ShippingInfo;
+import com.myshop.order.command.domain.ShippingInfoChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JSON 과 Smile codec 의 payload 크기와 인코딩/디코딩 비용을 비교한다.
+ */
+class PayloadCodecBenchmarkTest {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private PayloadCodec json = new JacksonPayloadCodec(JacksonPayloadCodec.JSON, false,
+            new ObjectMapper().findAndRegisterModules());
+    private PayloadCodec smile = new JacksonPayloadCodec(JacksonPayloadCodec.SMILE, true,
+            new ObjectMapper(new SmileFactory()).findAndRegisterModules());
+
+    private OrderPlacedEvent orderPlaced = new OrderPlacedEvent(
+            "ORDER-20211201-0001",
+            new Orderer(MemberId.of("user1"), "사용자1"),
+            List.of(new OrderLine(ProductId.of("prod-001"), new Money(1000), 2),
+                    new OrderLine(ProductId.of("prod-002"), new Money(3500), 1),
+                    new OrderLine(ProductId.of("prod-003"), new Money(12000), 5)),
+            new ShippingInfo(new Address("12345", "서울시 강남구", "123동 456호"),
+                    "부재시 문 앞에 놔주세요", new Receiver("받는사람", "010-1234-5678")),
+            OrderState.PAYMENT_WAITING,
+            LocalDateTime.now());
+    private ShippingInfoChangedEvent shippingInfoChanged = new ShippingInfoChangedEvent(
+            OrderNo.of("ORDER-20211201-0001"),
+            new ShippingInfo(new Address("12345", "서울시 강남구", "123동 456호"),
+                    "부재시 문 앞에 놔주세요", new Receiver("받는사람", "010-1234-5678")));
+
+    @Test
+    void smileIsSmallerThanJson() {
+        for (Object event : List.of(orderPlaced, shippingInfoChanged)) {
+            byte[] jsonPayload = json.encode(event);
+            byte[] smilePayload = smile.encode(event);
+            logger.info("{} : json {} bytes, smile {} bytes", event.getClass().getSimpleName(),
+                    jsonPayload.length, smilePayload.length);
+            assertThat(smilePayload.length).isLessThan(jsonPayload.length);
+            assertThat(smile.decode(smilePayload, JsonNode.class)).isEqualTo(json.decode(jsonPayload, JsonNode.class));
+        }
+    }
+
+    @Test
+    void typeIdIsShorterThanClassName() {
+        EventTypeRegistry registry = new EventTypeRegistry();
+        for (Class<?> type : List.of(OrderPlacedEvent.class, ShippingInfoChangedEvent.class)) {
+            String id = registry.idOf(type);
+            logger.info("{} : type id {} bytes, class name {} bytes", type.getSimpleName(),
+                    id.getBytes(StandardCharsets.UTF_8).length, type.getName().getBytes(StandardCharsets.UTF_8).length);
+            assertThat(registry.classOf(id)).isEqualTo(type);
+            assertThat(registry.classOf(type.getName())).isEqualTo(type);
+        }
+    }
+
+    /**
+     * -Dbenchmark=true 일 때만 실행한다.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void encodeDecodeCost() {
+        int iterations = 200_000;
+        for (Object event : List.of(orderPlaced, shippingInfoChanged)) {
+            for (PayloadCodec codec : List.of(json, smile)) {
+                measure(codec, event, iterations / 10); // warm up
+                long[] nanos = measure(codec, event, iterations);
+                logger.info("{} {} : encode {} ns/op, decode {} ns/op", event.getClass().getSimpleName(),
+                        codec.contentType(), nanos[0] / iterations, nanos[1] / iterations);
+            }
+        }
+    }
+
+    private long[] measure(PayloadCodec codec, Object event, int iterations) {
+        byte[] payload = codec.encode(event);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            payload = codec.encode(event);
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            codec.decode(payload, JsonNode.class);
+        }
+        long decodeNanos = System.nanoTime() - start;
+        return new long[]{encodeNanos, decodeNanos};
+    }
+}
@@ -0,0 +1,159 @@
+package com.myshop.eventstore.infra;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.api.Projection;
+import com.myshop.eventstore.api.ProjectionCheckpointStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectionReplayerTest {
+    private InMemoryEventStore eventStore = new InMemoryEventStore();
+    private InMemoryCheckpointStore checkpointStore = new InMemoryCheckpointStore();
+    private KeySequenceProjection projection = new KeySequenceProjection();
+    private ProjectionReplayer replayer = new ProjectionReplayer(
+            eventStore, checkpointStore, List.of(projection), 1000, 4);
+
+    @AfterEach
+    void tearDown() {
+        replayer.shutdown();
+    }
+
+    @Test
+    void sameKeyEventsAreAppliedInOrder() {
+        append(1, 10_000);
+
+        long applied = replayer.rebuild("key-sequence");
+
+        assertThat(applied).isEqualTo(10_000);
+        assertThat(checkpointStore.get("key-sequence")).isEqualTo(10_000);
+        assertThat(projection.total()).isEqualTo(10_000);
+        projection.sequences.values().forEach(ids -> assertThat(ids).isSorted());
+    }
+
+    @Test
+    void catchUpAppliesOnlyNewEventsAndRebuildStartsOver() {
+        append(1, 2_500);
+        replayer.catchUp("key-sequence");
+
+        append(2_501, 3_000);
+        assertThat(replayer.catchUp("key-sequence")).isEqualTo(500);
+        assertThat(projection.total()).isEqualTo(3_000);
+
+        assertThat(replayer.rebuild("key-sequence")).isEqualTo(3_000);
+        assertThat(projection.total()).isEqualTo(3_000);
+        assertThat(projection.resetCount).isEqualTo(1);
+    }
+
+    @Test
+    void skipsOtherEventTypes() {
+        append(1, 100);
+        eventStore.entries.add(new EventEntry(101L, "other", "application/json", "{}", "ORDER-1", 101L));
+
+        assertThat(replayer.rebuild("key-sequence")).isEqualTo(100);
+        assertThat(checkpointStore.get("key-sequence")).isEqualTo(101);
+    }
+
+    @Test
+    void keylessEventsAreAppliedInOrder() {
+        for (long id = 1; id <= 10_000; id++) {
+            String key = id % 2 == 0 ? null : "ORDER-" + (id % 37);
+            eventStore.entries.add(new EventEntry(id, "order", "application/json", "{}", key, id));
+        }
+
+        assertThat(replayer.rebuild("key-sequence")).isEqualTo(10_000);
+        assertThat(projection.sequences.get(KeySequenceProjection.NO_KEY)).hasSize(5_000).isSorted();
+    }
+
+    private void append(long from, long to) {
+        for (long id = from; id <= to; id++) {
+            eventStore.entries.add(new EventEntry(id, "order", "application/json", "{}", "ORDER-" + (id % 37), id));
+        }
+    }
+
+    private static class KeySequenceProjection implements Projection {
+        private static final String NO_KEY = "";
+
+        private Map<String, List<Long>> sequences = new ConcurrentHashMap<>();
+        private int resetCount;
+
+        @Override
+        public String name() {
+            return "key-sequence";
+        }
+
+        @Override
+        public Set<String> eventTypes() {
+            return Set.of("order");
+        }
+
+        @Override
+        public void reset() {
+            sequences.clear();
+            resetCount++;
+        }
+
+        @Override
+        public void apply(List<EventEntry> events) {
+            for (EventEntry event : events) {
+                String key = event.getAggregateKey() != null ? event.getAggregateKey() : NO_KEY;
+                sequences.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(event.getId());
+            }
+        }
+
+        int total() {
+            return sequences.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    private static class InMemoryCheckpointStore implements ProjectionCheckpointStore {
+        private Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+
+        @Override
+        public long get(String projection) {
+            return checkpoints.getOrDefault(projection, 0L);
+        }
+
+        @Override
+        public void update(String projection, long lastEventId) {
+            checkpoints.put(projection, lastEventId);
+        }
+    }
+
+    private static class InMemoryEventStore implements EventStore {
+        private List<EventEntry> entries = new ArrayList<>();
+
+        @Override
+        public void save(Object event) {
+        }
+
+        @Override
+        public void saveAll(List<?> events) {
+        }
+
+        @Override
+        public List<EventEntry> get(long offset, long limit) {
+            return entries.stream().skip(offset).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<EventEntry> getAfter(long lastId, long limit) {
+            return entries.stream().filter(e -> e.getId() > lastId).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public long getLastId() {
+            return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getId();
+        }
+    }
+}
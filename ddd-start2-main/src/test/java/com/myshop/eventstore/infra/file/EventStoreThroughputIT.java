@@ -0,0 +1,103 @@
+package com.myshop.eventstore.infra.file;
+
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.eventstore.infra.EventSerializer;
+import com.myshop.eventstore.infra.JdbcEventStore;
+import com.myshop.helper.SampleEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 초당 1k/10k/100k 건을 목표로 저장하면서 실제 처리량과 저장 지연(p50/p99)을 JdbcEventStore 와 비교한다.
+ * 지연은 예정 시각부터 저장이 끝날 때까지라서 목표 속도를 못 따라가면 밀린 시간이 그대로 보인다.
+ * -Dbenchmark=true 일 때만 실행한다.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EventStoreThroughputIT {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final int THREAD_COUNT = 64;
+    private static final int DURATION_SECONDS = 5;
+
+    @Autowired
+    private JdbcEventStore jdbcEventStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EventSerializer eventSerializer;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compare() throws InterruptedException {
+        MappedFileEventStore fileEventStore = new MappedFileEventStore(
+                eventSerializer, eventPublisher, directory.toString(), 64 * 1024 * 1024);
+        fileEventStore.start();
+        try {
+            for (int rate : new int[]{1_000, 10_000, 100_000}) {
+                jdbcTemplate.update("truncate table evententry");
+                run("jdbc", jdbcEventStore, rate);
+                run("file", fileEventStore, rate);
+            }
+        } finally {
+            fileEventStore.stop();
+        }
+    }
+
+    private void run(String name, EventStore eventStore, int rate) throws InterruptedException {
+        int total = rate * DURATION_SECONDS;
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        long start = System.nanoTime();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            executorService.submit(() -> {
+                try {
+                    int i;
+                    while ((i = next.getAndIncrement()) < total) {
+                        long due = start + (long) i * 1_000_000_000L / rate;
+                        long wait = due - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        eventStore.save(new SampleEvent("value" + i));
+                        latencies[i] = System.nanoTime() - due;
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+        Arrays.sort(latencies);
+        logger.info("{} target {}/s : actual {}/s, p50 {} ms, p99 {} ms", name, rate,
+                total * 1_000_000_000L / elapsed,
+                latencies[total / 2] / 1_000_000.0,
+                latencies[(int) (total * 0.99)] / 1_000_000.0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.myshop.eventstore.infra.file;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.infra.EventSerializer;
+import com.myshop.eventstore.infra.EventTypeRegistry;
+import com.myshop.helper.SampleEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedFileEventStoreTest {
+    @TempDir
+    Path directory;
+
+    private EventSerializer serializer = new EventSerializer(new EventTypeRegistry(), new ObjectMapper(),
+            Jackson2ObjectMapperBuilder.json(), "smile");
+    private MappedFileEventStore store;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        store.stop();
+    }
+
+    private MappedFileEventStore open(int segmentBytes) {
+        MappedFileEventStore opened = new MappedFileEventStore(serializer, event -> {
+        }, directory.toString(), segmentBytes);
+        opened.start();
+        return opened;
+    }
+
+    @Test
+    void getByOffsetAndId() {
+        store = open(1024 * 1024);
+        for (int i = 1; i <= 10; i++) {
+            store.save(new SampleEvent("value" + i));
+        }
+
+        List<EventEntry> entries = store.get(3, 4);
+        assertThat(ids(entries)).containsExactly(4L, 5L, 6L, 7L);
+        assertThat(serializer.fromEntry(entries.get(0), JsonNode.class).get("value").asText()).isEqualTo("value4");
+        assertThat(ids(store.getAfter(8, 10))).containsExactly(9L, 10L);
+        assertThat(store.getAfter(10, 10)).isEmpty();
+    }
+
+    @Test
+    void rollsSegmentsAndRecoversAfterRestart() throws InterruptedException {
+        store = open(4096);
+        store.saveAll(List.of(new SampleEvent("a"), new SampleEvent("b")));
+        for (int i = 0; i < 300; i++) {
+            store.save(new SampleEvent("value" + i));
+        }
+        store.stop();
+
+        store = open(4096);
+        assertThat(ids(store.getAfter(0, 1000))).hasSize(302).isSorted();
+        store.save(new SampleEvent("after-restart"));
+        List<EventEntry> last = store.getAfter(302, 10);
+        assertThat(ids(last)).containsExactly(303L);
+    }
+
+    @Test
+    void concurrentSavesGetDistinctIds() throws InterruptedException {
+        store = open(1024 * 1024);
+        int threadCount = 100;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            String value = "value" + i;
+            executorService.submit(() -> {
+                try {
+                    store.save(new SampleEvent(value));
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+
+        assertThat(ids(store.getAfter(0, 1000))).hasSize(threadCount).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void repeatedFsyncFailureFailsWaitingAndLaterSaves() {
+        store = new MappedFileEventStore(serializer, event -> {
+        }, directory.toString(), 1024 * 1024) {
+            @Override
+            void force(long target) {
+                throw new UncheckedIOException(new IOException("disk failure"));
+            }
+        };
+        store.start();
+
+        assertThatThrownBy(() -> store.save(new SampleEvent("a")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseInstanceOf(IOException.class);
+        assertThatThrownBy(() -> store.save(new SampleEvent("b")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(store.getAfter(0, 10)).isEmpty();
+    }
+
+    private List<Long> ids(List<EventEntry> entries) {
+        return entries.stream().map(EventEntry::getId).collect(Collectors.toList());
+    }
+}
@@ -17,6 +17,7 @@ public class DbHelper {
         jdbcTemplate.update("truncate table article_content");
         jdbcTemplate.update("truncate table purchase_order");
         jdbcTemplate.update("truncate table order_line");
+        jdbcTemplate.update("truncate table order_summary");
         jdbcTemplate.update("truncate table product");
         jdbcTemplate.update("truncate table image");
         jdbcTemplate.update("truncate table category");
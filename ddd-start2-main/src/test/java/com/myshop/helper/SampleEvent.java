@@ -0,0 +1,13 @@
+package com.myshop.helper;
+
+public class SampleEvent {
+    private String value;
+
+    public SampleEvent(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,334 @@
+package com.myshop.integration;
+
+import com.myshop.eventstore.api.EventEntry;
+import com.myshop.eventstore.api.EventStore;
+import com.myshop.integration.infra.MemoryOffsetStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventForwarderTest {
+    private static final int EVENT_COUNT = 1000;
+
+    private InMemoryEventStore eventStore = new InMemoryEventStore();
+    private MemoryOffsetStore offsetStore = new MemoryOffsetStore();
+    private List<Long> deadLetters = new CopyOnWriteArrayList<>();
+    private DeadLetterStore deadLetterStore = (partition, entry, attempts, cause) -> deadLetters.add(entry.getId());
+    private ForwarderRetryPolicy retryPolicy = new ForwarderRetryPolicy(3, 1, 10);
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ForwarderMetrics metrics = new ForwarderMetrics(registry, eventStore);
+    private EventForwarder forwarder;
+
+    @AfterEach
+    void tearDown() {
+        forwarder.stop();
+    }
+
+    @Test
+    void sameKeyEventsAreSentInOrder() throws InterruptedException {
+        for (long id = 1; id <= EVENT_COUNT; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-" + (id % 10), id));
+        }
+        Map<String, List<Long>> sentByKey = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(EVENT_COUNT);
+        forwarder = new EventForwarder(eventStore, offsetStore, entry -> {
+            sentByKey.computeIfAbsent(entry.getAggregateKey(), k -> new CopyOnWriteArrayList<>()).add(entry.getId());
+            latch.countDown();
+        }, deadLetterStore, retryPolicy, metrics, 4);
+        forwarder.start();
+
+        assertThat(getAndSendUntil(latch)).isTrue();
+        sentByKey.values().forEach(ids -> assertThat(ids).isSorted());
+        assertThat(sentByKey.values().stream().mapToInt(List::size).sum()).isEqualTo(EVENT_COUNT);
+    }
+
+    @Test
+    void poisonEventIsDeadLetteredAndLaterEventsAreSent() throws InterruptedException {
+        for (long id = 1; id <= 10; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-1", id));
+        }
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(9);
+        forwarder = new EventForwarder(eventStore, offsetStore, entry -> {
+            if (entry.getId() == 3L) {
+                throw new IllegalStateException("poison");
+            }
+            sent.add(entry.getId());
+            latch.countDown();
+        }, deadLetterStore, retryPolicy, metrics, 1);
+        forwarder.start();
+
+        assertThat(getAndSendUntil(latch)).isTrue();
+        assertThat(deadLetters).containsExactly(3L);
+        assertThat(sent).containsExactly(1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        // offset 은 전송 직후에 갱신되므로 잠깐 기다린다
+        long deadline = System.currentTimeMillis() + 1000;
+        while (offsetStore.get(0) < 10L && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(offsetStore.get(0)).isEqualTo(10L);
+    }
+
+    @Test
+    void offsetConflictRelinquishesOnlyThatPartition() throws InterruptedException {
+        for (long id = 1; id <= EVENT_COUNT; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-" + (id % 10), id));
+        }
+        int partitions = 4;
+        // 파티션 0 에서 한 번 충돌: 다른 forwarder 가 같은 값까지 보낸 것으로 둔다
+        ConflictingOffsetStore conflictingStore = new ConflictingOffsetStore(0);
+        Map<Integer, List<Long>> sentByPartition = new ConcurrentHashMap<>();
+        forwarder = new EventForwarder(eventStore, conflictingStore, entry -> sentByPartition
+                .computeIfAbsent(forwarder.partitionOf(entry), p -> new CopyOnWriteArrayList<>()).add(entry.getId()),
+                deadLetterStore, retryPolicy, metrics, partitions);
+        forwarder.start();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && !allSent(conflictingStore, partitions)) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+
+        assertThat(conflictingStore.conflicted).isTrue();
+        assertThat(allSent(conflictingStore, partitions)).isTrue();
+        sentByPartition.values().forEach(ids -> assertThat(ids).isSorted());
+        Map<Integer, Long> lastIdByPartition = eventStore.entries.stream()
+                .collect(Collectors.toMap(forwarder::partitionOf, EventEntry::getId, Math::max));
+        lastIdByPartition.forEach((partition, lastId) ->
+                assertThat(sentByPartition.get(partition)).contains(lastId));
+    }
+
+    @Test
+    void partitionIsSentOnlyWhileLeaseIsHeld() throws InterruptedException {
+        for (long id = 1; id <= 10; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-1", id));
+        }
+        LeasedOffsetStore leasedStore = new LeasedOffsetStore();
+        leasedStore.ownedByOther = true;
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        forwarder = new EventForwarder(eventStore, leasedStore, entry -> sent.add(entry.getId()),
+                deadLetterStore, retryPolicy, metrics, 1);
+        forwarder.start();
+
+        for (int i = 0; i < 20; i++) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+        assertThat(sent).isEmpty();
+
+        leasedStore.ownedByOther = false;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && leasedStore.get(0) < 10L) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+        assertThat(sent).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void offsetUpdateFailureIsRetried() throws InterruptedException {
+        for (long id = 1; id <= 10; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-1", id));
+        }
+        FailingOffsetStore failingStore = new FailingOffsetStore(3);
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        forwarder = new EventForwarder(eventStore, failingStore, entry -> sent.add(entry.getId()),
+                deadLetterStore, retryPolicy, metrics, 1);
+        forwarder.start();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && failingStore.get(0) < 10L) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+
+        assertThat(failingStore.failures).isZero();
+        assertThat(failingStore.get(0)).isEqualTo(10L);
+        assertThat(sent).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void idlePartitionsHaveNoLag() throws InterruptedException {
+        for (long id = 1; id <= 100; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-1", id));
+        }
+        int partitions = 4;
+        forwarder = new EventForwarder(eventStore, offsetStore, entry -> {
+        }, deadLetterStore, retryPolicy, metrics, partitions);
+        forwarder.start();
+        int busy = forwarder.partitionOf(eventStore.entries.get(0));
+
+        // 읽기 전에는 어느 파티션 이벤트인지 모르므로 모두 밀려 있다
+        assertThat(lag(busy)).isEqualTo(100);
+        assertThat(lag((busy + 1) % partitions)).isEqualTo(100);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && !allSent(offsetStore, partitions)) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+
+        assertThat(allSent(offsetStore, partitions)).isTrue();
+        for (int partition = 0; partition < partitions; partition++) {
+            assertThat(lag(partition)).isZero();
+        }
+    }
+
+    @Test
+    void slowPartitionDoesNotBlockOthers() throws InterruptedException {
+        for (long id = 1; id <= EVENT_COUNT * 2; id++) {
+            eventStore.entries.add(new EventEntry(id, "type", "application/json", "{}", "ORDER-" + (id % 10), id));
+        }
+        int partitions = 4;
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Integer, List<Long>> sentByPartition = new ConcurrentHashMap<>();
+        forwarder = new EventForwarder(eventStore, offsetStore, entry -> {
+            int partition = forwarder.partitionOf(entry);
+            if (partition == 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sentByPartition.computeIfAbsent(partition, p -> new CopyOnWriteArrayList<>()).add(entry.getId());
+        }, deadLetterStore, retryPolicy, metrics, partitions);
+        forwarder.start();
+        Map<Integer, Long> countByPartition = eventStore.entries.stream()
+                .collect(Collectors.groupingBy(forwarder::partitionOf, Collectors.counting()));
+        // 파티션 0 의 이벤트가 파티션 큐(200)보다 많다
+        assertThat(countByPartition.get(0)).isGreaterThan(200);
+
+        // 파티션 0 이 막혀 큐가 가득 차도 다른 파티션은 모두 보낸다
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && !sentAllExcept(sentByPartition, countByPartition, 0)) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+        assertThat(sentAllExcept(sentByPartition, countByPartition, 0)).isTrue();
+        assertThat(sentByPartition.get(0)).isNull();
+
+        release.countDown();
+        deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && !sentAllExcept(sentByPartition, countByPartition, -1)) {
+            forwarder.getAndSend();
+            Thread.sleep(10);
+        }
+        assertThat(sentAllExcept(sentByPartition, countByPartition, -1)).isTrue();
+        sentByPartition.values().forEach(ids -> assertThat(ids).isSorted().doesNotHaveDuplicates());
+    }
+
+    private boolean sentAllExcept(Map<Integer, List<Long>> sentByPartition, Map<Integer, Long> countByPartition,
+                                  int excluded) {
+        return countByPartition.entrySet().stream()
+                .filter(e -> e.getKey() != excluded)
+                .allMatch(e -> sentByPartition.getOrDefault(e.getKey(), List.of()).size() == e.getValue());
+    }
+
+    private boolean getAndSendUntil(CountDownLatch latch) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && latch.getCount() > 0) {
+            forwarder.getAndSend();
+            latch.await(10, TimeUnit.MILLISECONDS);
+        }
+        return latch.getCount() == 0;
+    }
+
+    private double lag(int partition) {
+        return registry.get("forwarder.lag").tag("partition", String.valueOf(partition)).gauge().value();
+    }
+
+    private boolean allSent(OffsetStore store, int partitions) {
+        Map<Integer, Long> lastIdByPartition = eventStore.entries.stream()
+                .collect(Collectors.toMap(forwarder::partitionOf, EventEntry::getId, Math::max));
+        for (int partition = 0; partition < partitions; partition++) {
+            if (store.get(partition) < lastIdByPartition.getOrDefault(partition, 0L)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class ConflictingOffsetStore extends MemoryOffsetStore {
+        private final int conflictPartition;
+        private volatile boolean conflicted;
+
+        ConflictingOffsetStore(int conflictPartition) {
+            this.conflictPartition = conflictPartition;
+        }
+
+        @Override
+        public void update(int partition, long lastEventId) {
+            if (partition == conflictPartition && !conflicted && lastEventId > 100) {
+                conflicted = true;
+                throw new OffsetConflictException("test", partition);
+            }
+            super.update(partition, lastEventId);
+        }
+    }
+
+    private static class LeasedOffsetStore extends MemoryOffsetStore {
+        private volatile boolean ownedByOther;
+
+        @Override
+        public boolean acquire(int partition) {
+            return !ownedByOther;
+        }
+    }
+
+    private static class FailingOffsetStore extends MemoryOffsetStore {
+        private volatile int failures;
+
+        FailingOffsetStore(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void update(int partition, long lastEventId) {
+            if (failures > 0) {
+                failures--;
+                throw new TransientDataAccessResourceException("offset store down");
+            }
+            super.update(partition, lastEventId);
+        }
+    }
+
+    private static class InMemoryEventStore implements EventStore {
+        private List<EventEntry> entries = new ArrayList<>();
+
+        @Override
+        public void save(Object event) {
+        }
+
+        @Override
+        public void saveAll(List<?> events) {
+        }
+
+        @Override
+        public List<EventEntry> get(long offset, long limit) {
+            return entries.stream().skip(offset).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<EventEntry> getAfter(long lastId, long limit) {
+            return entries.stream().filter(e -> e.getId() > lastId).limit(limit).collect(Collectors.toList());
+        }
+
+        @Override
+        public long getLastId() {
+            return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getId();
+        }
+    }
+}
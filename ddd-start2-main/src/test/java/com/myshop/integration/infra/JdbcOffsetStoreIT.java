@@ -0,0 +1,72 @@
+package com.myshop.integration.infra;
+
+import com.myshop.integration.OffsetConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class JdbcOffsetStoreIT {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from event_offset where consumer = 'it'");
+    }
+
+    @Test
+    void checkpointEveryNEvents() {
+        JdbcOffsetStore store = new JdbcOffsetStore(jdbcTemplate, "it", 3, 60_000, 10);
+        assertThat(store.acquire(0)).isTrue();
+        store.update(0, 1);
+        store.update(0, 2);
+        assertThat(persisted(0)).isEqualTo(0L);
+
+        store.update(0, 3);
+        assertThat(persisted(0)).isEqualTo(3L);
+
+        store.update(0, 4);
+        store.flush();
+        assertThat(persisted(0)).isEqualTo(4L);
+        assertThat(new JdbcOffsetStore(jdbcTemplate, "it", 3, 60_000, 10).get(0)).isEqualTo(4L);
+    }
+
+    @Test
+    void onlyOneInstanceAdvancesSamePartition() {
+        JdbcOffsetStore first = new JdbcOffsetStore(jdbcTemplate, "it", 1, 60_000, 10);
+        JdbcOffsetStore second = new JdbcOffsetStore(jdbcTemplate, "it", 1, 60_000, 10);
+        assertThat(first.acquire(0)).isTrue();
+        second.get(0);
+
+        first.update(0, 10);
+        assertThatThrownBy(() -> second.update(0, 5))
+                .isInstanceOf(OffsetConflictException.class);
+        assertThat(persisted(0)).isEqualTo(10L);
+    }
+
+    @Test
+    void leaseIsHeldByOneInstanceUntilReleased() {
+        JdbcOffsetStore first = new JdbcOffsetStore(jdbcTemplate, "it", 1, 60_000, 10);
+        JdbcOffsetStore second = new JdbcOffsetStore(jdbcTemplate, "it", 1, 60_000, 10);
+
+        assertThat(first.acquire(0)).isTrue();
+        assertThat(second.acquire(0)).isFalse();
+        assertThat(first.acquire(0)).isTrue();
+
+        first.flush();
+        assertThat(second.acquire(0)).isTrue();
+        assertThat(first.acquire(0)).isFalse();
+    }
+
+    private Long persisted(int partition) {
+        return jdbcTemplate.queryForObject(
+                "select last_event_id from event_offset where consumer = 'it' and partition_no = ?",
+                Long.class, partition);
+    }
+}
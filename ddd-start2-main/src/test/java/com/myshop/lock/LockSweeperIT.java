@@ -0,0 +1,59 @@
+package com.myshop.lock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class LockSweeperIT {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("truncate table locks");
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 25; i++) {
+            jdbcTemplate.update("insert into locks values (?, ?, ?, ?)",
+                    "order", "EXPIRED-" + i, "expired-" + i, new Timestamp(now - 60_000));
+        }
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("insert into locks values (?, ?, ?, ?)",
+                    "order", "LIVE-" + i, "live-" + i, new Timestamp(now + 60_000));
+        }
+    }
+
+    @Test
+    void 만료된_락만_나눠서_지움() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        LockSweeper sweeper = new LockSweeper(jdbcTemplate, registry, true, 10, 100);
+
+        assertThat(sweeper.sweep()).isEqualTo(25);
+
+        assertThat(jdbcTemplate.queryForList("select lockid from locks", String.class))
+                .containsExactlyInAnyOrder("live-0", "live-1", "live-2");
+        assertThat(registry.get("lock.table.rows").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("lock.sweep.deleted").counter().count()).isEqualTo(25);
+        assertThat(registry.get("lock.sweep.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void 한_번에_maxBatches_까지만_지움() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        LockSweeper sweeper = new LockSweeper(jdbcTemplate, registry, true, 10, 2);
+
+        assertThat(sweeper.sweep()).isEqualTo(20);
+        assertThat(registry.get("lock.table.expired").gauge().value()).isEqualTo(5);
+
+        assertThat(sweeper.sweep()).isEqualTo(5);
+        assertThat(registry.get("lock.table.expired").gauge().value()).isEqualTo(0);
+    }
+}
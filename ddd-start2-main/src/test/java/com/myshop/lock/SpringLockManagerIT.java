@@ -0,0 +1,190 @@
+package com.myshop.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class SpringLockManagerIT {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final int CALLERS = 200;
+
+    @Autowired
+    private LockManager lockManager;
+    @Autowired
+    private SpringLockManager springLockManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("truncate table locks");
+    }
+
+    @AfterEach
+    void tearDown() {
+        springLockManager.setLockTimeout(5 * 60 * 1000);
+    }
+
+    @Test
+    void 락이_없으면_잡고_있으면_실패() throws LockException {
+        LockId lockId = lockManager.tryLock("order", "ORD-1");
+
+        assertThatThrownBy(() -> lockManager.tryLock("order", "ORD-1"))
+                .isInstanceOf(AlreadyLockedException.class);
+        lockManager.checkLock(lockId);
+
+        lockManager.releaseLock(lockId);
+        LockId next = lockManager.tryLock("order", "ORD-1");
+        assertThat(next.getValue()).isNotEqualTo(lockId.getValue());
+    }
+
+    @Test
+    void 만료된_락은_가져옴() throws LockException {
+        jdbcTemplate.update("insert into locks values (?, ?, ?, ?)",
+                "order", "ORD-1", "expired", new Timestamp(System.currentTimeMillis() - 60_000));
+
+        LockId lockId = lockManager.tryLock("order", "ORD-1");
+
+        String owner = jdbcTemplate.queryForObject(
+                "select lockid from locks where type = ? and id = ?", String.class, "order", "ORD-1");
+        assertThat(owner).isEqualTo(lockId.getValue());
+        assertThatThrownBy(() -> lockManager.checkLock(new LockId("expired")))
+                .isInstanceOf(NoLockException.class);
+    }
+
+    @Test
+    void 다른_노드에서_놓고_다시_잡힌_락은_이전_lockId_로_확인_실패() throws LockException {
+        LockId lockId = lockManager.tryLock("order", "ORD-1");
+        lockManager.checkLock(lockId);
+        // 다른 노드의 releaseLock: 이 노드의 lease 는 그대로 남는다
+        jdbcTemplate.update("delete from locks where lockid = ?", lockId.getValue());
+        LockId next = lockManager.tryLock("order", "ORD-1");
+
+        assertThatThrownBy(() -> lockManager.checkLock(lockId))
+                .isInstanceOf(NoLockException.class);
+        lockManager.checkLock(next);
+    }
+
+    @Test
+    void 만료가_가까운_락은_DB_로_확인() throws LockException {
+        springLockManager.setLockTimeout(3000);
+        LockId lockId = lockManager.tryLock("order", "ORD-1");
+        jdbcTemplate.update("delete from locks");
+
+        assertThatThrownBy(() -> lockManager.checkLock(lockId))
+                .isInstanceOf(NoLockException.class);
+    }
+
+    @Test
+    void 다른_노드가_잡은_락은_DB_로_확인() {
+        jdbcTemplate.update("insert into locks values (?, ?, ?, ?)",
+                "order", "ORD-1", "foreign", new Timestamp(System.currentTimeMillis() + 60_000));
+        lockManager.checkLock(new LockId("foreign"));
+
+        jdbcTemplate.update("delete from locks");
+        assertThatThrownBy(() -> lockManager.checkLock(new LockId("foreign")))
+                .isInstanceOf(NoLockException.class);
+    }
+
+    @Test
+    void 락을_놓으면_lease_도_지움() throws LockException {
+        LockId lockId = lockManager.tryLock("order", "ORD-1");
+        lockManager.releaseLock(lockId);
+
+        assertThatThrownBy(() -> lockManager.checkLock(lockId))
+                .isInstanceOf(NoLockException.class);
+    }
+
+    @Test
+    void 동시에_호출하면_하나만_성공() throws Exception {
+        assertThat(contend("ORD-1")).isEqualTo(1);
+    }
+
+    @Test
+    void 동시에_만료된_락을_가져가도_하나만_성공() throws Exception {
+        jdbcTemplate.update("insert into locks values (?, ?, ?, ?)",
+                "order", "ORD-1", "expired", new Timestamp(System.currentTimeMillis() - 60_000));
+
+        assertThat(contend("ORD-1")).isEqualTo(1);
+    }
+
+    @Test
+    void 여러_대상을_동시에_잡으면_모두_성공() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LockId>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            String id = "ORD-" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return lockManager.tryLock("order", id);
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<LockId> future : futures) {
+            assertThat(future.get(30, TimeUnit.SECONDS)).isNotNull();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        logger.info("{} tryLock on distinct ids: {} ms, {} locks/s", CALLERS,
+                elapsedNanos / 1_000_000, CALLERS * 1_000_000_000L / Math.max(elapsedNanos, 1));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from locks", Integer.class)).isEqualTo(CALLERS);
+    }
+
+    /**
+     * CALLERS 개의 호출이 같은 대상의 락을 동시에 잡는다. 성공한 호출 수를 돌려준다.
+     */
+    private int contend(String id) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger locked = new AtomicInteger();
+        AtomicInteger alreadyLocked = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    lockManager.tryLock("order", id);
+                    locked.incrementAndGet();
+                } catch (AlreadyLockedException e) {
+                    alreadyLocked.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        logger.info("{} tryLock on same id: {} ms, {} calls/s", CALLERS,
+                elapsedNanos / 1_000_000, CALLERS * 1_000_000_000L / Math.max(elapsedNanos, 1));
+        assertThat(locked.get() + alreadyLocked.get()).isEqualTo(CALLERS);
+        return locked.get();
+    }
+}
@@ -0,0 +1,94 @@
+package com.myshop.order.infra;
+
+import com.myshop.catalog.command.domain.product.ProductId;
+import com.myshop.common.model.Address;
+import com.myshop.common.model.Money;
+import com.myshop.eventstore.infra.JdbcEventStore;
+import com.myshop.eventstore.infra.ProjectionReplayer;
+import com.myshop.member.command.domain.MemberId;
+import com.myshop.order.command.domain.OrderCanceledEvent;
+import com.myshop.order.command.domain.OrderLine;
+import com.myshop.order.command.domain.OrderNo;
+import com.myshop.order.command.domain.OrderPlacedEvent;
+import com.myshop.order.command.domain.OrderState;
+import com.myshop.order.command.domain.Orderer;
+import com.myshop.order.command.domain.Receiver;
+import com.myshop.order.command.domain.ShippingInfo;
+import com.myshop.order.command.domain.ShippingInfoChangedEvent;
+import com.myshop.order.command.domain.ShippingStartedEvent;
+import com.myshop.order.query.dao.OrderSummaryDao;
+import com.myshop.order.query.dto.OrderSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Sql("classpath:shop-init-test.sql")
+class OrderSummaryProjectionIT {
+    @Autowired
+    private JdbcEventStore eventStore;
+    @Autowired
+    private ProjectionReplayer projectionReplayer;
+    @Autowired
+    private OrderSummaryDao orderSummaryDao;
+
+    @Test
+    void 주문_이벤트로_목록을_다시_만듦() {
+        eventStore.save(placed("ORDER-101", "user1", "prod-002", LocalDateTime.of(2022, 2, 1, 10, 0)));
+        eventStore.save(new ShippingInfoChangedEvent(OrderNo.of("ORDER-101"), shippingInfo("새받는사람")));
+        eventStore.save(new OrderCanceledEvent("ORDER-101"));
+        eventStore.save(placed("ORDER-102", "user1", "prod-001", LocalDateTime.of(2022, 2, 2, 10, 0)));
+        eventStore.save(new ShippingStartedEvent("ORDER-102"));
+
+        assertThat(projectionReplayer.rebuild(OrderSummaryProjection.NAME)).isEqualTo(5);
+
+        List<OrderSummary> summaries = orderSummaryDao.findByOrdererId("user1", Sort.by("number"));
+        assertThat(summaries).extracting(OrderSummary::getNumber).containsExactly("ORDER-101", "ORDER-102");
+
+        OrderSummary canceled = summaries.get(0);
+        assertThat(canceled.getState()).isEqualTo("CANCELED");
+        assertThat(canceled.getReceiverName()).isEqualTo("새받는사람");
+        assertThat(canceled.getVersion()).isEqualTo(2);
+        assertThat(canceled.getTotalAmounts()).isEqualTo(4000);
+        assertThat(canceled.getProductName()).isEqualTo("어프로치 휴대용 화이트보드 세트");
+        assertThat(canceled.getOrderDate()).isEqualTo(LocalDateTime.of(2022, 2, 1, 10, 0));
+
+        assertThat(summaries.get(1).getState()).isEqualTo("SHIPPED");
+        assertThat(summaries.get(1).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void 다시_만들어도_결과가_같고_이후_이벤트만_이어서_반영함() {
+        eventStore.save(placed("ORDER-101", "user1", "prod-002", LocalDateTime.of(2022, 2, 1, 10, 0)));
+        projectionReplayer.rebuild(OrderSummaryProjection.NAME);
+        projectionReplayer.rebuild(OrderSummaryProjection.NAME);
+        assertThat(projectionReplayer.catchUp(OrderSummaryProjection.NAME)).isZero();
+
+        eventStore.save(new OrderCanceledEvent("ORDER-101"));
+        assertThat(projectionReplayer.catchUp(OrderSummaryProjection.NAME)).isEqualTo(1);
+
+        List<OrderSummary> summaries = orderSummaryDao.findByOrdererId("user1");
+        assertThat(summaries).hasSize(1);
+        assertThat(summaries.get(0).getState()).isEqualTo("CANCELED");
+        assertThat(summaries.get(0).getVersion()).isEqualTo(1);
+    }
+
+    private OrderPlacedEvent placed(String number, String ordererId, String productId, LocalDateTime orderDate) {
+        return new OrderPlacedEvent(number,
+                new Orderer(MemberId.of(ordererId), "사용자1"),
+                List.of(new OrderLine(ProductId.of(productId), new Money(2000), 2)),
+                shippingInfo("받는사람"), OrderState.PAYMENT_WAITING, orderDate);
+    }
+
+    private ShippingInfo shippingInfo(String receiverName) {
+        return new ShippingInfo(new Address("123456", "서울시", "관악구"), "메시지",
+                new Receiver(receiverName, "010-1234-5678"));
+    }
+}
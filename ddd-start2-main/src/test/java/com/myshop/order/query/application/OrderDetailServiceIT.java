@@ -0,0 +1,72 @@
+package com.myshop.order.query.application;
+
+import com.myshop.catalog.query.product.ProductCache;
+import com.myshop.helper.DbHelper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderDetailServiceIT {
+    @Autowired
+    private OrderDetailService orderDetailService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DbHelper dbHelper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        dbHelper.clear();
+        productCache.invalidateAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void 주문_라인_수와_상관없이_상품은_한_번에_조회(int lineCount) {
+        givenOrder("ORDER-1", lineCount);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderDetail detail = orderDetailService.getOrderDetail("ORDER-1").get();
+
+        // 주문, 주문 라인, 상품(이미지 포함)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(detail.getOrderLines()).hasSize(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            OrderLineDetail line = detail.getOrderLines().get(i);
+            assertThat(line.getProductId()).isEqualTo("PROD-" + i);
+            assertThat(line.getProductName()).isEqualTo("상품 " + i);
+            assertThat(line.getProductImagePath()).isEqualTo("/images/thumbnail/PROD-" + i + ".png");
+        }
+    }
+
+    private void givenOrder(String orderNumber, int lineCount) {
+        jdbcTemplate.update("insert into purchase_order (order_number, version, orderer_id, orderer_name, " +
+                        "total_amounts, state, order_date) values (?, 0, ?, ?, ?, ?, ?)",
+                orderNumber, "user1", "사용자1", 1000 * lineCount, "PAYMENT_WAITING", LocalDateTime.now());
+        for (int i = 0; i < lineCount; i++) {
+            String productId = "PROD-" + i;
+            jdbcTemplate.update("insert into product values (?,?,?,?)", productId, "상품 " + i, 1000, "상세");
+            jdbcTemplate.update("insert into image (product_id, list_idx, image_type, image_path, upload_time) " +
+                            "values (?,?,?,?,?)",
+                    productId, 0, "II", productId + ".png", LocalDateTime.now());
+            jdbcTemplate.update("insert into order_line values (?,?,?,?,?,?)",
+                    orderNumber, i, productId, 1000, 1, 1000);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 truncate table purchase_order;
 truncate table order_line;
+truncate table order_summary;
 truncate table category;
 truncate table product_category;
 truncate table product;
@@ -9,6 +10,7 @@ truncate table member_authorities;
 truncate table article;
 truncate table article_content;
 truncate table evententry;
+truncate table projection_checkpoint;
 
 insert into member (member_id, name, password, blocked) values ('user1', '사용자1', '1234', false);
 insert into member (member_id, name, password, blocked) values ('user2', '사용자2', '5678', false);
@@ -72,6 +74,11 @@ insert into purchase_order values (
 );
 insert into order_line values ('ORDER-003', 0, 'prod-001', 1000, 5, 5000);
 
+insert into order_summary values
+  ('ORDER-001', 1, 'user1', '사용자1', 4000, '사용자1', 'PREPARING', '2022-01-01 15:30:00', 'prod-001', '라즈베리파이3 모델B', 0),
+  ('ORDER-002', 2, 'user1', '사용자1', 5000, '사용자1', 'PREPARING', '2022-01-02 09:18:21', 'prod-001', '라즈베리파이3 모델B', 0),
+  ('ORDER-003', 3, 'user2', '사용자2', 5000, '사용자1', 'SHIPPED', '2016-01-03 09:00:00', 'prod-001', '라즈베리파이3 모델B', 0);
+
 insert into article (title) values ('제목');
 insert into article_content values (1, 'content', 'type');
 
@@ -0,0 +1,23 @@
+package com.example.stock.config;
+
+import com.example.stock.repository.LockReleaseNotifier;
+import com.example.stock.repository.RedisLockRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisLockConfig {
+
+    @Bean
+    public RedisMessageListenerContainer lockReleaseListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      LockReleaseNotifier lockReleaseNotifier) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(lockReleaseNotifier,
+                new PatternTopic(RedisLockRepository.RELEASE_CHANNEL_PREFIX + "*"));
+        return container;
+    }
+}
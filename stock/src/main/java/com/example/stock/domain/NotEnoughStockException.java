@@ -0,0 +1,7 @@
+package com.example.stock.domain;
+
+public class NotEnoughStockException extends RuntimeException {
+    public NotEnoughStockException(Long id) {
+        super("not enough stock : " + id);
+    }
+}
@@ -22,13 +22,25 @@ public class Stock {
         this.quantity = quantity;
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
     public Long getQuantity() {
         return quantity;
     }
 
+    public boolean hasQuantity(Long quantity) {
+        return this.quantity - quantity >= 0;
+    }
+
     public void decrease(Long quantity){
-        if(this.quantity - quantity < 0){
-            throw new RuntimeException();
+        if(!hasQuantity(quantity)){
+            throw new NotEnoughStockException(id);
         }
 
         this.quantity = this.quantity - quantity;
@@ -0,0 +1,37 @@
+package com.example.stock.execution;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 락 대기가 긴 차감 호출을 어떤 스레드에서 실행할지 정한다.
+ * VIRTUAL 은 JDK 21 이상에서만 쓸 수 있다. 소스는 11 로 컴파일되므로 리플렉션으로 찾는다.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public ExecutorService newExecutor(int platformThreads) {
+        if (this == PLATFORM) {
+            return Executors.newFixedThreadPool(platformThreads);
+        }
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("virtual threads require JDK 21+ : " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static boolean isVirtualSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
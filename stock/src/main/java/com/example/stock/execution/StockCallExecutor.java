@@ -0,0 +1,63 @@
+package com.example.stock.execution;
+
+import com.example.stock.facade.DecreaseResult;
+import com.example.stock.facade.StockFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 블로킹 facade(Lettuce 대기, GET_LOCK 대기 등) 호출을 stock.execution.mode 에 맞는 executor 에서 실행한다.
+ * VIRTUAL 을 골랐는데 런타임이 JDK 21 미만이면 경고를 남기고 PLATFORM 으로 돈다.
+ */
+@Component
+public class StockCallExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(StockCallExecutor.class);
+
+    private final ExecutionMode mode;
+    private final ExecutorService executor;
+
+    public StockCallExecutor(@Value("${stock.execution.mode:PLATFORM}") ExecutionMode requested,
+                             @Value("${stock.execution.platform-threads:32}") int platformThreads) {
+        if (requested == ExecutionMode.VIRTUAL && !ExecutionMode.isVirtualSupported()) {
+            logger.warn("stock.execution.mode=VIRTUAL needs JDK 21+, running on {} with PLATFORM threads", Runtime.version());
+            this.mode = ExecutionMode.PLATFORM;
+        } else {
+            this.mode = requested;
+        }
+        this.executor = mode.newExecutor(platformThreads);
+    }
+
+    public CompletableFuture<DecreaseResult> decrease(StockFacade facade, Long id, Long quantity) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return facade.decrease(id, quantity);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return DecreaseResult.INTERRUPTED;
+            }
+        }, executor);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.stock.facade;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.service.AtomicUpdateStockService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AtomicUpdateStockFacade implements StockFacade {
+
+    private final AtomicUpdateStockService atomicUpdateStockService;
+
+    public AtomicUpdateStockFacade(AtomicUpdateStockService atomicUpdateStockService) {
+        this.atomicUpdateStockService = atomicUpdateStockService;
+    }
+
+    @Override
+    public DecreaseResult decrease(Long id, Long quantity) {
+        try {
+            atomicUpdateStockService.decrease(id, quantity);
+            return DecreaseResult.SUCCESS;
+        } catch (NotEnoughStockException e) {
+            return DecreaseResult.NOT_ENOUGH_STOCK;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.stock.facade;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.service.PessimisticLockStockService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 재고 id 로 동시에 들어온 차감 요청을 잠깐 모아서(group commit) 한 번의 row lock 으로 처리한다.
+ */
+@Component
+public class CoalescingStockFacade {
+
+    private static final long DEFAULT_WINDOW_MICROS = 300;
+    private static final int DEFAULT_WORKER_COUNT = 4;
+
+    private final PessimisticLockStockService pessimisticLockStockService;
+    private final ConcurrentMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final long windowMicros;
+
+    @Autowired
+    public CoalescingStockFacade(PessimisticLockStockService pessimisticLockStockService) {
+        this(pessimisticLockStockService, DEFAULT_WINDOW_MICROS, DEFAULT_WORKER_COUNT);
+    }
+
+    CoalescingStockFacade(PessimisticLockStockService pessimisticLockStockService,
+                          long windowMicros, int workerCount) {
+        this.pessimisticLockStockService = pessimisticLockStockService;
+        this.windowMicros = windowMicros;
+        this.scheduler = Executors.newScheduledThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "stock-coalescing-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 재고가 부족하면 반환된 future 가 {@link NotEnoughStockException} 으로 완료된다.
+     */
+    public CompletableFuture<Void> decrease(Long id, Long quantity) {
+        Request request = new Request(quantity);
+        lanes.compute(id, (key, lane) -> {
+            if (lane == null) {
+                lane = new Lane();
+                scheduler.schedule(() -> flush(key), windowMicros, TimeUnit.MICROSECONDS);
+            }
+            lane.pending.add(request);
+            return lane;
+        });
+        return request.result;
+    }
+
+    /**
+     * id 별로 한 번에 한 batch 만 처리한다. 처리하는 동안 들어온 요청은 다음 batch 로 모아 두었다가
+     * 앞 batch 가 끝나면 바로 처리한다. 그래서 같은 id 의 batch 끼리 FOR UPDATE 를 두고 기다리지 않는다.
+     */
+    private void flush(Long id) {
+        List<List<Request>> taken = new ArrayList<>(1);
+        lanes.computeIfPresent(id, (key, lane) -> {
+            taken.add(lane.pending);
+            lane.pending = new ArrayList<>();
+            return lane;
+        });
+        try {
+            if (!taken.isEmpty()) {
+                process(id, taken.get(0));
+            }
+        } finally {
+            lanes.computeIfPresent(id, (key, lane) -> {
+                if (lane.pending.isEmpty()) {
+                    return null;
+                }
+                scheduler.execute(() -> flush(key));
+                return lane;
+            });
+        }
+    }
+
+    private void process(Long id, List<Request> requests) {
+        List<Long> quantities = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            quantities.add(request.quantity);
+        }
+
+        try {
+            List<Boolean> results = pessimisticLockStockService.decreaseEach(id, quantities);
+            for (int i = 0; i < results.size(); i++) {
+                CompletableFuture<Void> result = requests.get(i).result;
+                if (results.get(i)) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(new NotEnoughStockException(id));
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Request request : requests) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // map 에 있으면 flush 가 예약돼 있거나 batch 를 처리 중이다. pending 은 lanes 의 compute 안에서만 바꾼다.
+    private static class Lane {
+        private List<Request> pending = new ArrayList<>();
+    }
+
+    private static class Request {
+        private final Long quantity;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Request(Long quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
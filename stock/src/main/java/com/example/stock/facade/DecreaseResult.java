@@ -0,0 +1,15 @@
+package com.example.stock.facade;
+
+/**
+ * 재고 차감 결과. 재고 부족은 예외가 아니라 {@link #NOT_ENOUGH_STOCK} 으로 돌려준다.
+ */
+public enum DecreaseResult {
+    SUCCESS,
+    NOT_ENOUGH_STOCK,
+    LOCK_TIMEOUT,
+    INTERRUPTED;
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
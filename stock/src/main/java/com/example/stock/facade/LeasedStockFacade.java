@@ -0,0 +1,25 @@
+package com.example.stock.facade;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.reservation.StockLeasePool;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LeasedStockFacade implements StockFacade {
+
+    private final StockLeasePool stockLeasePool;
+
+    public LeasedStockFacade(StockLeasePool stockLeasePool) {
+        this.stockLeasePool = stockLeasePool;
+    }
+
+    @Override
+    public DecreaseResult decrease(Long id, Long quantity) {
+        try {
+            stockLeasePool.decrease(id, quantity);
+            return DecreaseResult.SUCCESS;
+        } catch (NotEnoughStockException e) {
+            return DecreaseResult.NOT_ENOUGH_STOCK;
+        }
+    }
+}
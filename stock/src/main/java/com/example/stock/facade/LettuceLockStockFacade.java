@@ -1,28 +1,51 @@
 package com.example.stock.facade;
 
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.repository.LockReleaseNotifier;
 import com.example.stock.repository.RedisLockRepository;
 import com.example.stock.service.StockService;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 @Component
-public class LettuceLockStockFacade {
+public class LettuceLockStockFacade implements StockFacade {
+    private static final long WAIT_TIMEOUT_MILLIS = 100;
+
     private RedisLockRepository redisLockRepository;
+    private LockReleaseNotifier lockReleaseNotifier;
     private StockService stockService;
 
-    public LettuceLockStockFacade(RedisLockRepository redisLockRepository, StockService stockService) {
+    public LettuceLockStockFacade(RedisLockRepository redisLockRepository,
+                                  LockReleaseNotifier lockReleaseNotifier,
+                                  StockService stockService) {
         this.redisLockRepository = redisLockRepository;
+        this.lockReleaseNotifier = lockReleaseNotifier;
         this.stockService = stockService;
     }
 
-    public void decrease(Long key, Long quantity) throws InterruptedException {
-        while(!redisLockRepository.lock(key)){
-            Thread.sleep(100);
-        }
+    @Override
+    public DecreaseResult decrease(Long key, Long quantity) throws InterruptedException {
+        String token = UUID.randomUUID().toString();
+        lock(key, token);
 
         try {
             stockService.decrease(key, quantity);
+            return DecreaseResult.SUCCESS;
+        } catch (NotEnoughStockException e) {
+            return DecreaseResult.NOT_ENOUGH_STOCK;
         } finally {
-            redisLockRepository.unlock(key);
+            redisLockRepository.unlock(key, token);
+        }
+    }
+
+    private void lock(Long key, String token) throws InterruptedException {
+        while (true) {
+            long seen = lockReleaseNotifier.generation(key);
+            if (Boolean.TRUE.equals(redisLockRepository.lock(key, token))) {
+                return;
+            }
+            lockReleaseNotifier.await(key, seen, WAIT_TIMEOUT_MILLIS);
         }
     }
 
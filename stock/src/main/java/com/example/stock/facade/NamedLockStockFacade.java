@@ -1,29 +1,54 @@
 package com.example.stock.facade;
 
-import com.example.stock.repository.LockRepository;
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.repository.NamedLockExecutor;
+import com.example.stock.service.PessimisticLockStockService;
 import com.example.stock.service.StockService;
 import org.springframework.stereotype.Component;
 
-import javax.transaction.Transactional;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
-public class NamedLockStockFacade {
+public class NamedLockStockFacade implements StockFacade {
 
-    private final LockRepository lockRepository;
+    private final NamedLockExecutor namedLockExecutor;
     private final StockService stockService;
+    private final PessimisticLockStockService pessimisticLockStockService;
 
-    public NamedLockStockFacade(LockRepository lockRepository, StockService stockService) {
-        this.lockRepository = lockRepository;
+    public NamedLockStockFacade(NamedLockExecutor namedLockExecutor, StockService stockService,
+                                PessimisticLockStockService pessimisticLockStockService) {
+        this.namedLockExecutor = namedLockExecutor;
         this.stockService = stockService;
+        this.pessimisticLockStockService = pessimisticLockStockService;
     }
 
-    @Transactional
-    public void decrease(Long id, Long quantity){
-        try {
-            lockRepository.getLock(id.toString());
-            stockService.decrease(id, quantity);
-        } finally {
-            lockRepository.releaseLock(id.toString());
-        }
+    @Override
+    public DecreaseResult decrease(Long id, Long quantity){
+        return namedLockExecutor.execute(lockKey(id), () -> {
+            try {
+                stockService.decrease(id, quantity);
+                return DecreaseResult.SUCCESS;
+            } catch (NotEnoughStockException e) {
+                return DecreaseResult.NOT_ENOUGH_STOCK;
+            }
+        });
+    }
+
+    /**
+     * 여러 상품을 한 주문에서 차감할 때 쓴다. 모든 상품을 기본 풀의 한 트랜잭션에서 차감하므로
+     * 하나라도 재고가 부족하면 전체가 롤백된다.
+     */
+    public void decreaseAll(Map<Long, Long> quantities) {
+        namedLockExecutor.execute(
+                quantities.keySet().stream().map(this::lockKey).collect(Collectors.toList()),
+                () -> {
+                    pessimisticLockStockService.decreaseAll(quantities);
+                    return null;
+                });
+    }
+
+    private String lockKey(Long id) {
+        return "stock-" + id;
     }
 }
@@ -1,26 +1,53 @@
 package com.example.stock.facade;
 
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.retry.BackoffRetryPolicy;
+import com.example.stock.retry.RetryExhaustedException;
+import com.example.stock.retry.StockContentionMetrics;
 import com.example.stock.service.OptimisticLockStockService;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class OptimisticLockStockFacade {
+public class OptimisticLockStockFacade implements StockFacade {
 
     private OptimisticLockStockService optimisticLockStockService;
+    private BackoffRetryPolicy retryPolicy;
+    private StockContentionMetrics metrics;
 
-    public OptimisticLockStockFacade(OptimisticLockStockService optimisticLockStockService) {
+    public OptimisticLockStockFacade(OptimisticLockStockService optimisticLockStockService,
+                                     BackoffRetryPolicy retryPolicy,
+                                     StockContentionMetrics metrics) {
         this.optimisticLockStockService = optimisticLockStockService;
+        this.retryPolicy = retryPolicy;
+        this.metrics = metrics;
     }
 
-    public void decrease(Long id, Long quantity) throws InterruptedException {
-        while(true){
-            try {
-                optimisticLockStockService.decrease(id, quantity);
-
-                break;
-            } catch (Exception e) {
-                Thread.sleep(50);
+    @Override
+    public DecreaseResult decrease(Long id, Long quantity) throws InterruptedException {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    optimisticLockStockService.decrease(id, quantity);
+                    outcome = "success";
+                    return DecreaseResult.SUCCESS;
+                } catch (NotEnoughStockException e) {
+                    outcome = "not_enough_stock";
+                    return DecreaseResult.NOT_ENOUGH_STOCK;
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    metrics.conflict(id);
+                    if (!retryPolicy.canRetry(attempt)) {
+                        outcome = "exhausted";
+                        throw new RetryExhaustedException(id, attempt, e);
+                    }
+                    metrics.retry(id);
+                    Thread.sleep(retryPolicy.backoffMillis(attempt));
+                }
             }
+        } finally {
+            metrics.recordLatency(outcome, System.nanoTime() - start);
         }
     }
 
@@ -1,38 +1,62 @@
 package com.example.stock.facade;
 
+import com.example.stock.domain.NotEnoughStockException;
 import com.example.stock.service.StockService;
-import io.lettuce.core.RedisClient;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.TimeUnit;
 
 @Component
-public class RedissonLockStockFacade {
+public class RedissonLockStockFacade implements StockFacade {
+    private static final String LOCK_PREFIX = "redisson-stock-lock:";
+    private static final long WAIT_SECONDS = 5;
 
     private RedissonClient redissonClient;
 
     private StockService stockService;
 
-    public RedissonLockStockFacade(RedissonClient redisClient, StockService stockService) {
+    private boolean fair;
+
+    public RedissonLockStockFacade(RedissonClient redisClient, StockService stockService,
+                                   @Value("${stock.redisson.fair-lock:false}") boolean fair) {
         this.redissonClient = redisClient;
         this.stockService = stockService;
+        this.fair = fair;
     }
 
-    public void decrease(Long key, Long quantity) {
-        RLock lock = redissonClient.getLock(key.toString());
+    /**
+     * leaseTime 을 주지 않아 watchdog 이 작업이 끝날 때까지 락을 연장한다.
+     * 락을 얻지 못하면 차감하지 않고 {@link DecreaseResult#LOCK_TIMEOUT} 을 돌려준다.
+     */
+    @Override
+    public DecreaseResult decrease(Long key, Long quantity) {
+        RLock lock = lockOf(key);
+        boolean acquired;
         try {
-            boolean available = lock.tryLock(5, 1, TimeUnit.SECONDS);
-            if(!available){
-                System.out.println("lock 획득 실패" );
-                return;
-            }
-            stockService.decrease(key, quantity);
+            acquired = lock.tryLock(WAIT_SECONDS, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            Thread.currentThread().interrupt();
+            return DecreaseResult.INTERRUPTED;
+        }
+        if (!acquired) {
+            return DecreaseResult.LOCK_TIMEOUT;
+        }
+
+        try {
+            stockService.decrease(key, quantity);
+            return DecreaseResult.SUCCESS;
+        } catch (NotEnoughStockException e) {
+            return DecreaseResult.NOT_ENOUGH_STOCK;
         } finally {
             lock.unlock();
         }
     }
-}
\ No newline at end of file
+
+    private RLock lockOf(Long key) {
+        String name = LOCK_PREFIX + key;
+        return fair ? redissonClient.getFairLock(name) : redissonClient.getLock(name);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.stock.facade;
+
+/**
+ * 재고 차감 전략의 공통 계약. 상품 등급별로 구현체를 골라 쓸 수 있다.
+ * 재고가 부족하면 차감하지 않고 {@link DecreaseResult#NOT_ENOUGH_STOCK} 을 돌려준다. 재고가 없는 id 는 예외로 알린다.
+ */
+public interface StockFacade {
+    DecreaseResult decrease(Long id, Long quantity) throws InterruptedException;
+}
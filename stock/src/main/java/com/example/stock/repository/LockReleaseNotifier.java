@@ -0,0 +1,111 @@
+package com.example.stock.repository;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 락 해제 알림을 key 별로 기다리는 대기자에게 전달한다.
+ * 대기자는 락 시도 전에 generation 을 읽어 두고, 시도에 실패하면 그 값이 바뀔 때까지 기다린다.
+ * 그래서 시도와 대기 사이에 해제 알림이 와도 놓치지 않는다.
+ * key 별 Signal 은 대기자가 있는 동안만 두고, 마지막 대기자가 나가면 지운다. 모든 해제는 전역 sequence 를 올리고,
+ * 새로 만드는 Signal 은 그 값에서 시작하므로 Signal 이 지워졌다 다시 만들어져도 사이에 온 해제를 알아챈다.
+ */
+@Component
+public class LockReleaseNotifier implements MessageListener {
+
+    private final ConcurrentMap<Long, Signal> signals = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Long key = Long.valueOf(channel.substring(RedisLockRepository.RELEASE_CHANNEL_PREFIX.length()));
+        released(key);
+    }
+
+    public void released(Long key) {
+        long generation = sequence.incrementAndGet();
+        signals.computeIfPresent(key, (k, signal) -> {
+            signal.signal(generation);
+            return signal;
+        });
+    }
+
+    public long generation(Long key) {
+        Signal signal = signals.get(key);
+        return signal == null ? sequence.get() : signal.generation();
+    }
+
+    /**
+     * 해제 알림이 오거나 timeout 이 지나면 돌아온다. 락 TTL 만료처럼 알림이 없는 해제는 timeout 후 재시도로 잡는다.
+     */
+    public void await(Long key, long seenGeneration, long timeoutMillis) throws InterruptedException {
+        Signal signal = signals.compute(key, (k, current) -> {
+            Signal joined = current == null ? new Signal(sequence.get()) : current;
+            joined.waiters++;
+            return joined;
+        });
+        try {
+            signal.await(seenGeneration, timeoutMillis);
+        } finally {
+            signals.computeIfPresent(key, (k, current) -> --current.waiters == 0 ? null : current);
+        }
+    }
+
+    int signalCount() {
+        return signals.size();
+    }
+
+    // synchronized/wait 는 virtual thread 를 carrier 에 고정시키므로 ReentrantLock 을 쓴다
+    private static class Signal {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private long generation;
+        // signals 의 compute 안에서만 바꾼다
+        private int waiters;
+
+        Signal(long generation) {
+            this.generation = generation;
+        }
+
+        long generation() {
+            lock.lock();
+            try {
+                return generation;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void signal(long next) {
+            lock.lock();
+            try {
+                generation = Math.max(generation, next);
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void await(long seenGeneration, long timeoutMillis) throws InterruptedException {
+            lock.lock();
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (generation == seenGeneration && remaining > 0) {
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
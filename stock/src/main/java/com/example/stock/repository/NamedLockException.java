@@ -0,0 +1,11 @@
+package com.example.stock.repository;
+
+public class NamedLockException extends RuntimeException {
+    public NamedLockException(String message) {
+        super(message);
+    }
+
+    public NamedLockException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
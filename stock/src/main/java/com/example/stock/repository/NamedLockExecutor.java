@@ -0,0 +1,123 @@
+package com.example.stock.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * MySQL GET_LOCK 은 세션(커넥션) 단위라서, 락용 커넥션을 비즈니스 트랜잭션과 다른 작은 풀에서 꺼내
+ * 락을 쥐는 동안 고정해서 쓴다. 비즈니스 작업은 기존 DataSource 풀에서 실행된다.
+ */
+@Component
+public class NamedLockExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(NamedLockExecutor.class);
+
+    private final HikariDataSource lockDataSource;
+    private final int timeoutSeconds;
+
+    public NamedLockExecutor(DataSourceProperties dataSourceProperties,
+                             @Value("${stock.named-lock.pool-size:10}") int poolSize,
+                             @Value("${stock.named-lock.timeout-seconds:3}") int timeoutSeconds) {
+        this.lockDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        this.lockDataSource.setPoolName("named-lock-pool");
+        this.lockDataSource.setMaximumPoolSize(poolSize);
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public <T> T execute(String key, Supplier<T> work) {
+        return execute(Collections.singleton(key), work);
+    }
+
+    /**
+     * 여러 key 를 항상 정렬된 순서로 잡아서 주문끼리 서로 다른 순서로 락을 잡는 교착을 막는다.
+     * 락을 하나라도 풀지 못했거나 커넥션 오류가 났으면 세션에 락이 남아 있을 수 있으므로 커넥션을 풀에 돌려주지 않고 버린다.
+     */
+    public <T> T execute(Collection<String> keys, Supplier<T> work) {
+        Connection connection = getConnection();
+        Deque<String> acquired = new ArrayDeque<>();
+        boolean clean = true;
+        try {
+            for (String key : new TreeSet<>(keys)) {
+                getLock(connection, key);
+                acquired.push(key);
+            }
+            return work.get();
+        } catch (SQLException e) {
+            clean = false;
+            throw new NamedLockException("named lock failed", e);
+        } finally {
+            while (!acquired.isEmpty()) {
+                String key = acquired.pop();
+                try {
+                    releaseLock(connection, key);
+                } catch (SQLException | RuntimeException e) {
+                    clean = false;
+                    logger.error("release_lock failed : {}", key, e);
+                }
+            }
+            close(connection, clean);
+        }
+    }
+
+    private Connection getConnection() {
+        try {
+            return lockDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new NamedLockException("named lock connection failed", e);
+        }
+    }
+
+    private void close(Connection connection, boolean clean) {
+        if (!clean) {
+            lockDataSource.evictConnection(connection);
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("named lock connection close failed", e);
+        }
+    }
+
+    private void getLock(Connection connection, String key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("select get_lock(?, ?)")) {
+            ps.setString(1, key);
+            ps.setInt(2, timeoutSeconds);
+            try (ResultSet rs = ps.executeQuery()) {
+                // 1: 획득, 0: timeout, null: 오류
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new NamedLockException("get_lock failed : " + key);
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection, String key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("select release_lock(?)")) {
+            ps.setString(1, key);
+            ps.executeQuery().close();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lockDataSource.close();
+    }
+}
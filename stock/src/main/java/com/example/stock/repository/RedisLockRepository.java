@@ -1,26 +1,47 @@
 package com.example.stock.repository;
 
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.Collections;
 
 @Component
 public class RedisLockRepository {
+    public static final String RELEASE_CHANNEL_PREFIX = "stock-lock-released:";
+
+    // 내가 잡은 락일 때만 지우고, 기다리는 쪽에 해제를 알린다.
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "redis.call('del', KEYS[1]) " +
+                    "redis.call('publish', ARGV[2], KEYS[1]) " +
+                    "return 1 " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
     private RedisTemplate<String, String> redisTemplate;
 
     public RedisLockRepository(RedisTemplate<String, String> redisTemplate) {
         this.redisTemplate = redisTemplate;
     }
-    public Boolean lock(Long key) {
+
+    public Boolean lock(Long key, String token) {
         return redisTemplate.opsForValue()
-                .setIfAbsent(generateKey(key), "lock", Duration.ofMillis(3_000));
+                .setIfAbsent(generateKey(key), token, Duration.ofMillis(3_000));
     }
 
-    public Boolean unlock(Long key){
-        return redisTemplate.delete(generateKey(key));
+    public Boolean unlock(Long key, String token){
+        Long released = redisTemplate.execute(UNLOCK_SCRIPT,
+                Collections.singletonList(generateKey(key)), token, releaseChannel(key));
+        return released != null && released == 1L;
     }
 
+    public static String releaseChannel(Long key) {
+        return RELEASE_CHANNEL_PREFIX + key;
+    }
 
     private String generateKey(Long key) {
         return key.toString();
@@ -3,16 +3,36 @@ package com.example.stock.repository;
 import com.example.stock.domain.Stock;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
     @Lock(value = LockModeType.PESSIMISTIC_WRITE)
     @Query("select s from Stock s where s.id = :id")
     Stock findByIdWithPessimisticLock(@Param("id") Long id);
 
+    @Lock(value = LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Stock s where s.id in :ids order by s.id")
+    List<Stock> findAllByIdWithPessimisticLock(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "update stock set quantity = quantity - :quantity, version = version + 1 " +
+            "where id = :id and quantity >= :quantity", nativeQuery = true)
+    int decreaseIfEnough(@Param("id") Long id, @Param("quantity") Long quantity);
+
+    @Modifying
+    @Query(value = "update stock set quantity = quantity + :quantity, version = version + 1 " +
+            "where id = :id", nativeQuery = true)
+    int increase(@Param("id") Long id, @Param("quantity") Long quantity);
+
+    @Query("select s.quantity from Stock s where s.id = :id")
+    Long findQuantityById(@Param("id") Long id);
+
     @Lock(value = LockModeType.OPTIMISTIC)
     @Query("select s from Stock s where s.id = :id")
     Stock findByIdWithOptimisticLock(@Param("id") Long id);
@@ -0,0 +1,98 @@
+package com.example.stock.reservation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 하나의 스레드만 counters 에 접근하는 single-writer lane.
+ * 같은 productId 는 항상 같은 lane 으로 들어오므로 counter 에 락이 필요 없다.
+ */
+class ReservationLane {
+
+    private final ExecutorService executor;
+    private final Map<Long, ReservedStock> counters = new HashMap<>();
+
+    ReservationLane(int index) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservation-lane-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    Map<Long, ReservedStock> counters() {
+        return counters;
+    }
+
+    <T> T call(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * DB 에서 떼어 와서 아직 팔지 않은 수량. touched 는 마지막 idle 반환 뒤에 쓰였는지 나타낸다.
+     */
+    static class ReservedStock {
+        private final Long productId;
+        private long available;
+        private boolean touched;
+
+        ReservedStock(Long productId) {
+            this.productId = productId;
+        }
+
+        Long getProductId() {
+            return productId;
+        }
+
+        long getAvailable() {
+            return available;
+        }
+
+        boolean tryDecrease(long quantity) {
+            touched = true;
+            if (available - quantity < 0) {
+                return false;
+            }
+            available -= quantity;
+            return true;
+        }
+
+        void grant(long quantity) {
+            available += quantity;
+            touched = true;
+        }
+
+        /**
+         * 남은 수량을 비우고 돌려준다. idleOnly 면 지난 반환 뒤에 쓰이지 않은 counter 만 비운다.
+         */
+        long drain(boolean idleOnly) {
+            if (idleOnly && touched) {
+                touched = false;
+                return 0;
+            }
+            long drained = available;
+            available = 0;
+            return drained;
+        }
+    }
+}
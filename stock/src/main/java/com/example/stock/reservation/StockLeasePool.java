@@ -0,0 +1,206 @@
+package com.example.stock.reservation;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.service.AtomicUpdateStockService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 인기 상품용. 재고를 blockSize 단위로 DB 에서 미리 떼어 와서(lease) 노드 메모리에서 차감한다.
+ * 품절이 확인된 상품은 soldOutRecheckMillis 동안 DB 를 보지 않고 바로 거절한다.
+ * 쓰지 않은 재고는 lease timeout 이 지나거나 종료될 때 DB 로 돌려준다.
+ * timeout 이 지난 lease 는 돌려준 뒤 map 에서도 지우므로 map 에는 최근에 팔린 상품만 남는다.
+ */
+@Component
+public class StockLeasePool {
+    private static final Logger logger = LoggerFactory.getLogger(StockLeasePool.class);
+
+    private final AtomicUpdateStockService stockService;
+    private final ConcurrentMap<Long, Lease> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reclaimer;
+    private final long blockSize;
+    private final long leaseTimeoutMillis;
+    private final long soldOutRecheckMillis;
+
+    public StockLeasePool(AtomicUpdateStockService stockService,
+                          @Value("${stock.lease.block-size:50}") long blockSize,
+                          @Value("${stock.lease.timeout-millis:30000}") long leaseTimeoutMillis,
+                          @Value("${stock.lease.sold-out-recheck-millis:1000}") long soldOutRecheckMillis) {
+        this.stockService = stockService;
+        this.blockSize = blockSize;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.soldOutRecheckMillis = soldOutRecheckMillis;
+        this.reclaimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-lease-reclaimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(leaseTimeoutMillis / 2, 1);
+        reclaimer.scheduleWithFixedDelay(this::reclaimExpiredQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void decrease(Long id, Long quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive : " + quantity);
+        }
+        while (true) {
+            Lease lease = leases.computeIfAbsent(id, Lease::new);
+            if (lease.tryTake(quantity)) {
+                return;
+            }
+            if (!refill(lease, quantity)) {
+                throw new NotEnoughStockException(id);
+            }
+        }
+    }
+
+    /**
+     * 다시 시도할 만하면 true. 그 사이 lease 가 map 에서 지워졌으면 채우지 않고 true 를 돌려서 새 lease 로 다시 시도하게 한다.
+     */
+    private boolean refill(Lease lease, long quantity) {
+        synchronized (lease) {
+            if (lease.retired || lease.available() >= quantity) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            if (lease.isSoldOut(now)) {
+                return false;
+            }
+
+            long granted = acquire(lease.id, Math.max(blockSize, quantity - lease.available()));
+            if (granted == 0) {
+                lease.markSoldOut(now + soldOutRecheckMillis);
+                return false;
+            }
+            lease.add(granted, now);
+            return true;
+        }
+    }
+
+    // 남은 재고가 blockSize 보다 적으면 남은 만큼만 가져온다
+    private long acquire(Long id, long wanted) {
+        if (stockService.tryDecrease(id, wanted)) {
+            return wanted;
+        }
+        long remaining = stockService.getQuantity(id);
+        while (remaining > 0) {
+            long take = Math.min(remaining, wanted);
+            if (stockService.tryDecrease(id, take)) {
+                return take;
+            }
+            remaining = stockService.getQuantity(id);
+        }
+        return 0;
+    }
+
+    public void releaseAll() {
+        for (Lease lease : leases.values()) {
+            release(lease);
+        }
+    }
+
+    private void reclaimExpiredQuietly() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            if (lease.leasedAt + leaseTimeoutMillis >= now || lease.isSoldOut(now)) {
+                continue;
+            }
+            try {
+                retire(lease);
+            } catch (RuntimeException e) {
+                logger.warn("stock lease reclaim failed : {}", lease.id, e);
+            }
+        }
+    }
+
+    private void retire(Lease lease) {
+        synchronized (lease) {
+            release(lease);
+            lease.retired = true;
+            leases.remove(lease.id, lease);
+        }
+    }
+
+    private void release(Lease lease) {
+        synchronized (lease) {
+            long unused = lease.drain();
+            if (unused > 0) {
+                try {
+                    stockService.increase(lease.id, unused);
+                } catch (RuntimeException e) {
+                    // 돌려주지 못한 재고는 lease 에 남겨 두고 다음 회수 때 다시 돌려준다
+                    lease.tokens.addAndGet(unused);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    int leaseCount() {
+        return leases.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        reclaimer.shutdown();
+        reclaimer.awaitTermination(5, TimeUnit.SECONDS);
+        releaseAll();
+    }
+
+    private static class Lease {
+        private final Long id;
+        private final AtomicLong tokens = new AtomicLong();
+        private volatile long leasedAt;
+        private volatile long soldOutUntil;
+        // map 에서 지워졌다. lease 락 안에서만 바꾼다.
+        private boolean retired;
+
+        Lease(Long id) {
+            this.id = id;
+        }
+
+        boolean tryTake(long quantity) {
+            while (true) {
+                long current = tokens.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (tokens.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        long available() {
+            return tokens.get();
+        }
+
+        void add(long granted, long now) {
+            tokens.addAndGet(granted);
+            leasedAt = now;
+            soldOutUntil = 0;
+        }
+
+        long drain() {
+            return tokens.getAndSet(0);
+        }
+
+        boolean isSoldOut(long now) {
+            return soldOutUntil > now;
+        }
+
+        void markSoldOut(long until) {
+            soldOutUntil = until;
+        }
+    }
+}
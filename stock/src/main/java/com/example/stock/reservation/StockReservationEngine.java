@@ -0,0 +1,205 @@
+package com.example.stock.reservation;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.reservation.ReservationLane.ReservedStock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * productId 별 재고를 DB 에서 claimSize 단위로 미리 떼어 와서(reserve-ahead) lane 메모리에서 차감한다.
+ * 떼어 올 때 조건부 UPDATE 로 DB 재고를 먼저 줄이므로 메모리에서 파는 수량은 항상 DB 가 내준 수량 안이다.
+ * 그래서 여러 노드나 다른 facade 와 함께 써도 초과 판매되지 않고, DB 쓰기는 claimSize 건마다 한 번이다.
+ * 쓰지 않은 수량은 releaseInterval 동안 차감이 없거나 flush, 종료할 때 DB 로 돌려준다. 돌려주기 전에 노드가 죽으면
+ * 그 수량은 팔리지 않은 채 DB 에서 빠져 있다.
+ * DB 조회와 갱신은 호출 스레드와 flusher 스레드에서 하고, lane 스레드는 메모리 counter 만 다룬다.
+ */
+@Component
+public class StockReservationEngine {
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    private static final int DEFAULT_LANE_COUNT = 8;
+    private static final long DEFAULT_CLAIM_SIZE = 50;
+    private static final long RELEASE_INTERVAL_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservationLane[] lanes;
+    private final long claimSize;
+    private final ConcurrentMap<Long, Object> claimLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    @Autowired
+    public StockReservationEngine(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_LANE_COUNT);
+    }
+
+    StockReservationEngine(JdbcTemplate jdbcTemplate, int laneCount) {
+        this(jdbcTemplate, laneCount, DEFAULT_CLAIM_SIZE, RELEASE_INTERVAL_MILLIS);
+    }
+
+    StockReservationEngine(JdbcTemplate jdbcTemplate, int laneCount, long claimSize, long releaseIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.claimSize = claimSize;
+        this.lanes = new ReservationLane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ReservationLane(i);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::releaseIdleQuietly,
+                releaseIntervalMillis, releaseIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void decrease(Long productId, Long quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive : " + quantity);
+        }
+        ReservationLane lane = laneOf(productId);
+        while (!lane.call(() -> counterOf(lane, productId).tryDecrease(quantity))) {
+            if (!claim(lane, productId, quantity)) {
+                throw new NotEnoughStockException(productId);
+            }
+        }
+    }
+
+    /**
+     * 이 노드가 DB 에서 떼어 왔지만 아직 팔지 않은 수량.
+     */
+    public long getAvailable(Long productId) {
+        ReservationLane lane = laneOf(productId);
+        return lane.call(() -> counterOf(lane, productId).getAvailable());
+    }
+
+    /**
+     * 쓰지 않은 수량을 모두 DB 로 돌려준다.
+     */
+    public synchronized void flush() {
+        for (ReservationLane lane : lanes) {
+            release(lane, false);
+        }
+    }
+
+    private boolean claim(ReservationLane lane, Long productId, long quantity) {
+        // 같은 상품을 여러 호출이 동시에 떼어 오지 않도록 한다. 기다리는 동안 다른 호출이 떼어 왔으면 그것을 쓴다.
+        synchronized (claimLocks.computeIfAbsent(productId, id -> new Object())) {
+            long available = lane.call(() -> counterOf(lane, productId).getAvailable());
+            if (available >= quantity) {
+                return true;
+            }
+            long granted = acquire(productId, Math.max(claimSize, quantity - available));
+            if (granted == 0) {
+                return false;
+            }
+            lane.call(() -> {
+                counterOf(lane, productId).grant(granted);
+                return null;
+            });
+            return true;
+        }
+    }
+
+    // 남은 재고가 wanted 보다 적으면 남은 만큼만 가져온다
+    private long acquire(Long productId, long wanted) {
+        if (tryClaim(productId, wanted)) {
+            return wanted;
+        }
+        long remaining = loadQuantity(productId);
+        while (remaining > 0) {
+            long take = Math.min(remaining, wanted);
+            if (tryClaim(productId, take)) {
+                return take;
+            }
+            remaining = loadQuantity(productId);
+        }
+        return 0;
+    }
+
+    private boolean tryClaim(Long productId, long quantity) {
+        return jdbcTemplate.update(
+                "update stock set quantity = quantity - ?, version = version + 1 where product_id = ? and quantity >= ?",
+                quantity, productId, quantity) > 0;
+    }
+
+    private void releaseIdleQuietly() {
+        try {
+            synchronized (this) {
+                for (ReservationLane lane : lanes) {
+                    release(lane, true);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 돌려주지 못한 수량은 counter 에 되돌려 두었으므로 다음 주기에 다시 돌려준다
+            logger.warn("stock reservation release failed", e);
+        }
+    }
+
+    private void release(ReservationLane lane, boolean idleOnly) {
+        Map<Long, Long> unused = lane.call(() -> drain(lane.counters(), idleOnly));
+        RuntimeException failure = null;
+        for (Map.Entry<Long, Long> entry : unused.entrySet()) {
+            try {
+                jdbcTemplate.update(
+                        "update stock set quantity = quantity + ?, version = version + 1 where product_id = ?",
+                        entry.getValue(), entry.getKey());
+            } catch (RuntimeException e) {
+                lane.call(() -> {
+                    counterOf(lane, entry.getKey()).grant(entry.getValue());
+                    return null;
+                });
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Map<Long, Long> drain(Map<Long, ReservedStock> counters, boolean idleOnly) {
+        Map<Long, Long> unused = new HashMap<>();
+        for (ReservedStock counter : counters.values()) {
+            long drained = counter.drain(idleOnly);
+            if (drained > 0) {
+                unused.put(counter.getProductId(), drained);
+            }
+        }
+        return unused;
+    }
+
+    private ReservedStock counterOf(ReservationLane lane, Long productId) {
+        return lane.counters().computeIfAbsent(productId, ReservedStock::new);
+    }
+
+    private long loadQuantity(Long productId) {
+        Long quantity = jdbcTemplate.queryForObject(
+                "select quantity from stock where product_id = ?", Long.class, productId);
+        return quantity == null ? 0 : quantity;
+    }
+
+    private ReservationLane laneOf(Long productId) {
+        return lanes[Math.floorMod(productId.hashCode(), lanes.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        for (ReservationLane lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.stock.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 지수 백오프 + full jitter. attempt 는 1 부터 시작한다.
+ */
+@Component
+public class BackoffRetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public BackoffRetryPolicy(@Value("${stock.retry.max-attempts:100}") int maxAttempts,
+                              @Value("${stock.retry.base-delay-millis:5}") long baseDelayMillis,
+                              @Value("${stock.retry.max-delay-millis:200}") long maxDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public boolean canRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
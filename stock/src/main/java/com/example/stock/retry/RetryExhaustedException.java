@@ -0,0 +1,7 @@
+package com.example.stock.retry;
+
+public class RetryExhaustedException extends RuntimeException {
+    public RetryExhaustedException(Long id, int attempts, Throwable cause) {
+        super("stock decrease retry exhausted : id=" + id + ", attempts=" + attempts, cause);
+    }
+}
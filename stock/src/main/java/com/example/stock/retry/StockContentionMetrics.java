@@ -0,0 +1,44 @@
+package com.example.stock.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재고 id 별 충돌/재시도 횟수와 결과(outcome)별 차감 지연시간. /actuator/metrics/stock.decrease.* 로 확인한다.
+ * 지연시간은 histogram 을 남기므로 재고 id 로 나누면 재고 수만큼 시계열이 늘어난다. 그래서 outcome 으로만 나눈다.
+ */
+@Component
+public class StockContentionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public StockContentionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void conflict(Long id) {
+        counter("stock.decrease.conflicts", id).increment();
+    }
+
+    public void retry(Long id) {
+        counter("stock.decrease.retries", id).increment();
+    }
+
+    public void recordLatency(String outcome, long elapsedNanos) {
+        Timer.builder("stock.decrease.latency")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter counter(String name, Long id) {
+        return Counter.builder(name)
+                .tag("stockId", id.toString())
+                .register(meterRegistry);
+    }
+}
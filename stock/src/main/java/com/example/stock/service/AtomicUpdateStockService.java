@@ -0,0 +1,58 @@
+package com.example.stock.service;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.repository.StockRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 엔티티를 읽지 않고 조건부 UPDATE 한 번으로 차감한다. 영향받은 row 가 없으면 재고 부족이다.
+ * 음수 수량은 조건부 UPDATE 를 통과해서 반대로 재고를 바꾸므로 모든 진입점에서 양수만 받는다.
+ */
+@Service
+public class AtomicUpdateStockService {
+
+    private StockRepository stockRepository;
+
+    public AtomicUpdateStockService(StockRepository stockRepository) {
+        this.stockRepository = stockRepository;
+    }
+
+    @Transactional
+    public void decrease(Long id, Long quantity) {
+        checkQuantity(quantity);
+        if (!tryDecrease(id, quantity)) {
+            // 실패했을 때만 한 번 더 조회해서 없는 재고와 부족한 재고를 구분한다
+            if (!stockRepository.existsById(id)) {
+                throw new NoSuchElementException("stock not found : " + id);
+            }
+            throw new NotEnoughStockException(id);
+        }
+    }
+
+    @Transactional
+    public boolean tryDecrease(Long id, Long quantity) {
+        checkQuantity(quantity);
+        return stockRepository.decreaseIfEnough(id, quantity) > 0;
+    }
+
+    @Transactional
+    public void increase(Long id, Long quantity) {
+        checkQuantity(quantity);
+        stockRepository.increase(id, quantity);
+    }
+
+    @Transactional(readOnly = true)
+    public long getQuantity(Long id) {
+        Long quantity = stockRepository.findQuantityById(id);
+        return quantity == null ? 0 : quantity;
+    }
+
+    private void checkQuantity(Long quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive : " + quantity);
+        }
+    }
+}
@@ -5,6 +5,12 @@ import com.example.stock.repository.StockRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
 @Service
 public class PessimisticLockStockService {
 
@@ -20,4 +26,41 @@ public class PessimisticLockStockService {
         stock.decrease(quantity);
         stockRepository.saveAndFlush(stock);
     }
+
+    /**
+     * 같은 재고에 대한 여러 요청을 한 번의 SELECT ... FOR UPDATE 와 한 번의 UPDATE 로 처리한다.
+     * 요청 순서대로 차감하고, 재고가 부족한 요청은 건너뛴다.
+     *
+     * @return 요청별 차감 성공 여부
+     */
+    @Transactional
+    public List<Boolean> decreaseEach(Long id, List<Long> quantities) {
+        Stock stock = stockRepository.findByIdWithPessimisticLock(id);
+        List<Boolean> results = new ArrayList<>(quantities.size());
+        for (Long quantity : quantities) {
+            boolean available = stock.hasQuantity(quantity);
+            if (available) {
+                stock.decrease(quantity);
+            }
+            results.add(available);
+        }
+        stockRepository.saveAndFlush(stock);
+        return results;
+    }
+
+    /**
+     * 여러 재고를 id 순서로 한 번에 잠그고(SELECT ... WHERE id IN (...) FOR UPDATE) 모두 차감한다.
+     * 하나라도 부족하면 전체가 롤백된다. UPDATE 는 hibernate.jdbc.batch_size 설정으로 JDBC batch 로 나간다.
+     */
+    @Transactional
+    public void decreaseAll(Map<Long, Long> quantities) {
+        List<Stock> stocks = stockRepository.findAllByIdWithPessimisticLock(new TreeSet<>(quantities.keySet()));
+        if (stocks.size() != quantities.size()) {
+            throw new NoSuchElementException("stock not found : " + quantities.keySet());
+        }
+        for (Stock stock : stocks) {
+            stock.decrease(quantities.get(stock.getId()));
+        }
+        stockRepository.flush();
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.repository.StockRepository;
+import com.example.stock.service.PessimisticLockStockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 주문 라인 수별로 decreaseAll 한 번과 단건 decrease 반복을 비교한다.
+ */
+@SpringBootTest
+class BatchDecreaseBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(BatchDecreaseBenchmarkTest.class);
+
+    private static final int ORDER_COUNT = 200;
+    private static final int THREAD_COUNT = 32;
+
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private PessimisticLockStockService pessimisticLockStockService;
+
+    @AfterEach
+    public void after() {
+        stockRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20})
+    public void 주문_라인수별_비교(int lines) throws InterruptedException {
+        Map<Long, Long> batchOrder = newOrder(lines);
+        logger.info("{}", LoadRunner.run(THREAD_COUNT, ORDER_COUNT,
+                () -> pessimisticLockStockService.decreaseAll(batchOrder)).format("batch-" + lines, THREAD_COUNT));
+
+        Map<Long, Long> loopOrder = newOrder(lines);
+        logger.info("{}", LoadRunner.run(THREAD_COUNT, ORDER_COUNT,
+                () -> loopOrder.forEach(pessimisticLockStockService::decrease)).format("loop-" + lines, THREAD_COUNT));
+    }
+
+    private Map<Long, Long> newOrder(int lines) {
+        Map<Long, Long> order = new HashMap<>();
+        for (long productId = 1; productId <= lines; productId++) {
+            Stock stock = stockRepository.save(new Stock(productId, (long) ORDER_COUNT));
+            order.put(stock.getId(), 1L);
+        }
+        return order;
+    }
+}
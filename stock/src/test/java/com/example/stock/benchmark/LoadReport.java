@@ -0,0 +1,42 @@
+package com.example.stock.benchmark;
+
+import java.util.Arrays;
+
+class LoadReport {
+    private final long elapsedMillis;
+    private final long[] latenciesNanos;
+    private final int failures;
+
+    LoadReport(long elapsedMillis, long[] latenciesNanos, int failures) {
+        this.elapsedMillis = elapsedMillis;
+        this.latenciesNanos = latenciesNanos.clone();
+        Arrays.sort(this.latenciesNanos);
+        this.failures = failures;
+    }
+
+    long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    int getFailures() {
+        return failures;
+    }
+
+    double throughput() {
+        return latenciesNanos.length * 1000.0 / Math.max(elapsedMillis, 1);
+    }
+
+    double percentileMillis(double percentile) {
+        if (latenciesNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+        return latenciesNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    String format(String name, int concurrency) {
+        return String.format("%-12s c=%-5d n=%-5d %7d ms %9.1f req/s p50=%8.2f ms p99=%8.2f ms fail=%d",
+                name, concurrency, latenciesNanos.length, elapsedMillis, throughput(),
+                percentileMillis(50), percentileMillis(99), failures);
+    }
+}
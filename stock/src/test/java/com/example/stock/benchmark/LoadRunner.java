@@ -0,0 +1,59 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.execution.ExecutionMode;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * concurrency 개의 스레드로 call 을 requests 번 실행하고 호출별 지연시간을 모은다.
+ */
+class LoadRunner {
+
+    static LoadReport run(int concurrency, int requests, StockCall call) throws InterruptedException {
+        return run(ExecutionMode.PLATFORM, concurrency, requests, call);
+    }
+
+    /**
+     * VIRTUAL 이면 concurrency 와 상관없이 요청마다 virtual thread 하나를 쓴다.
+     */
+    static LoadReport run(ExecutionMode mode, int concurrency, int requests, StockCall call) throws InterruptedException {
+        ExecutorService executorService = mode.newExecutor(concurrency);
+        try {
+            return run(executorService, requests, call);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * 주어진 executor 로 call 을 requests 번 실행한다. executor 의 수명은 호출한 쪽이 관리한다.
+     */
+    static LoadReport run(Executor executor, int requests, StockCall call) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(requests);
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            executor.execute(() -> {
+                long begin = System.nanoTime();
+                try {
+                    call.call();
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[index] = System.nanoTime() - begin;
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        long elapsed = System.currentTimeMillis() - start;
+
+        return new LoadReport(elapsed, latencies, failures.get());
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.stock.benchmark;
+
+@FunctionalInterface
+interface StockCall {
+    void call() throws Exception;
+}
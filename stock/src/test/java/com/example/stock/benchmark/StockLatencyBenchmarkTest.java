@@ -0,0 +1,76 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.facade.LettuceLockStockFacade;
+import com.example.stock.facade.NamedLockStockFacade;
+import com.example.stock.facade.OptimisticLockStockFacade;
+import com.example.stock.facade.RedissonLockStockFacade;
+import com.example.stock.repository.StockRepository;
+import com.example.stock.service.PessimisticLockStockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 동시 호출자 수별로 락 전략의 p50/p99 차감 지연시간을 비교한다.
+ */
+@SpringBootTest
+class StockLatencyBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(StockLatencyBenchmarkTest.class);
+
+    private static final int REQUEST_COUNT = 1000;
+
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private NamedLockStockFacade namedLockStockFacade;
+    @Autowired
+    private LettuceLockStockFacade lettuceLockStockFacade;
+    @Autowired
+    private RedissonLockStockFacade redissonLockStockFacade;
+    @Autowired
+    private OptimisticLockStockFacade optimisticLockStockFacade;
+    @Autowired
+    private PessimisticLockStockService pessimisticLockStockService;
+
+    @AfterEach
+    public void after() {
+        stockRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1000})
+    public void 전략별_지연시간_비교(int concurrency) throws InterruptedException {
+        Long namedId = newStock();
+        logger.info("{}", LoadRunner.run(concurrency, REQUEST_COUNT,
+                () -> namedLockStockFacade.decrease(namedId, 1L)).format("named", concurrency));
+
+        Long lettuceId = newStock();
+        logger.info("{}", LoadRunner.run(concurrency, REQUEST_COUNT,
+                () -> lettuceLockStockFacade.decrease(lettuceId, 1L)).format("lettuce", concurrency));
+
+        Long redissonId = newStock();
+        logger.info("{}", LoadRunner.run(concurrency, REQUEST_COUNT,
+                () -> {
+                    if (!redissonLockStockFacade.decrease(redissonId, 1L).isSuccess()) {
+                        throw new IllegalStateException("lock timeout");
+                    }
+                }).format("redisson", concurrency));
+
+        Long optimisticId = newStock();
+        logger.info("{}", LoadRunner.run(concurrency, REQUEST_COUNT,
+                () -> optimisticLockStockFacade.decrease(optimisticId, 1L)).format("optimistic", concurrency));
+
+        Long pessimisticId = newStock();
+        logger.info("{}", LoadRunner.run(concurrency, REQUEST_COUNT,
+                () -> pessimisticLockStockService.decrease(pessimisticId, 1L)).format("pessimistic", concurrency));
+    }
+
+    private Long newStock() {
+        return stockRepository.save(new Stock(1L, (long) REQUEST_COUNT)).getId();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.facade.LettuceLockStockFacade;
+import com.example.stock.facade.NamedLockStockFacade;
+import com.example.stock.facade.OptimisticLockStockFacade;
+import com.example.stock.facade.RedissonLockStockFacade;
+import com.example.stock.repository.StockRepository;
+import com.example.stock.reservation.StockReservationEngine;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 같은 재고 1건에 대해 전략별로 REQUEST_COUNT 번 차감하는 데 걸린 시간을 비교한다.
+ */
+@SpringBootTest
+class StockThroughputTest {
+    private static final Logger logger = LoggerFactory.getLogger(StockThroughputTest.class);
+
+    private static final int REQUEST_COUNT = 1000;
+    private static final int THREAD_COUNT = 32;
+
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+    @Autowired
+    private NamedLockStockFacade namedLockStockFacade;
+    @Autowired
+    private LettuceLockStockFacade lettuceLockStockFacade;
+    @Autowired
+    private RedissonLockStockFacade redissonLockStockFacade;
+    @Autowired
+    private OptimisticLockStockFacade optimisticLockStockFacade;
+
+    @AfterEach
+    public void after() {
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    public void 전략별_처리량_비교() throws InterruptedException {
+        report("reservation", 1L, stock -> () -> stockReservationEngine.decrease(stock.getProductId(), 1L));
+        report("named", 2L, stock -> () -> namedLockStockFacade.decrease(stock.getId(), 1L));
+        report("lettuce", 3L, stock -> () -> lettuceLockStockFacade.decrease(stock.getId(), 1L));
+        report("redisson", 4L, stock -> () -> redissonLockStockFacade.decrease(stock.getId(), 1L));
+        report("optimistic", 5L, stock -> () -> optimisticLockStockFacade.decrease(stock.getId(), 1L));
+    }
+
+    private void report(String name, Long productId, StockCallFactory factory) throws InterruptedException {
+        Stock stock = stockRepository.save(new Stock(productId, (long) REQUEST_COUNT));
+        LoadReport report = LoadRunner.run(THREAD_COUNT, REQUEST_COUNT, factory.create(stock));
+        logger.info("{}", report.format(name, THREAD_COUNT));
+
+        stockReservationEngine.flush();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+    }
+
+    @FunctionalInterface
+    interface StockCallFactory {
+        StockCall create(Stock stock);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.execution.ExecutionMode;
+import com.example.stock.execution.StockCallExecutor;
+import com.example.stock.facade.LettuceLockStockFacade;
+import com.example.stock.facade.NamedLockStockFacade;
+import com.example.stock.repository.StockRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 락 대기가 긴 facade 에 10k 요청을 StockCallExecutor 로 동시에 넣고 platform thread 풀과 virtual thread 를 비교한다.
+ * PLATFORM 은 항상 돌고, VIRTUAL 은 JDK 21 이상 런타임(./gradlew test -PtestJavaVersion=21)에서만 돈다.
+ */
+@SpringBootTest
+class VirtualThreadLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int REQUEST_COUNT = 10_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private LettuceLockStockFacade lettuceLockStockFacade;
+    @Autowired
+    private NamedLockStockFacade namedLockStockFacade;
+
+    @AfterEach
+    public void after() {
+        stockRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    public void 실행_모드별_비교(ExecutionMode mode) throws InterruptedException {
+        if (mode == ExecutionMode.VIRTUAL) {
+            Assumptions.assumeTrue(ExecutionMode.isVirtualSupported(), "virtual threads require JDK 21+");
+        }
+
+        StockCallExecutor executor = new StockCallExecutor(mode, PLATFORM_THREADS);
+        try {
+            Assertions.assertThat(executor.getMode()).isEqualTo(mode);
+
+            Long lettuceId = newStock();
+            LoadReport lettuce = LoadRunner.run(executor, REQUEST_COUNT,
+                    () -> lettuceLockStockFacade.decrease(lettuceId, 1L));
+            logger.info("{}", lettuce.format("lettuce-" + mode, PLATFORM_THREADS));
+            assertSoldOut(lettuceId, lettuce);
+
+            Long namedId = newStock();
+            LoadReport named = LoadRunner.run(executor, REQUEST_COUNT,
+                    () -> namedLockStockFacade.decrease(namedId, 1L));
+            logger.info("{}", named.format("named-" + mode, PLATFORM_THREADS));
+            assertSoldOut(namedId, named);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertSoldOut(Long id, LoadReport report) {
+        Assertions.assertThat(report.getFailures()).isZero();
+        Stock found = stockRepository.findById(id).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+    }
+
+    private Long newStock() {
+        return stockRepository.save(new Stock(1L, (long) REQUEST_COUNT)).getId();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.stock.execution;
+
+import com.example.stock.facade.DecreaseResult;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+class StockCallExecutorTest {
+
+    @Test
+    public void 설정한_모드의_executor_에서_facade_를_호출한다() throws InterruptedException, ExecutionException {
+        StockCallExecutor executor = new StockCallExecutor(ExecutionMode.PLATFORM, 2);
+        try {
+            CompletableFuture<DecreaseResult> result = executor.decrease((id, quantity) -> DecreaseResult.SUCCESS, 1L, 1L);
+
+            Assertions.assertThat(result.get()).isEqualTo(DecreaseResult.SUCCESS);
+            Assertions.assertThat(executor.getMode()).isEqualTo(ExecutionMode.PLATFORM);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void 인터럽트된_호출은_INTERRUPTED_로_끝난다() throws InterruptedException, ExecutionException {
+        StockCallExecutor executor = new StockCallExecutor(ExecutionMode.PLATFORM, 2);
+        try {
+            CompletableFuture<DecreaseResult> result = executor.decrease((id, quantity) -> {
+                throw new InterruptedException();
+            }, 1L, 1L);
+
+            Assertions.assertThat(result.get()).isEqualTo(DecreaseResult.INTERRUPTED);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void VIRTUAL_은_지원하는_JDK_에서만_쓰고_아니면_PLATFORM_으로_돈다() throws InterruptedException {
+        StockCallExecutor executor = new StockCallExecutor(ExecutionMode.VIRTUAL, 2);
+        try {
+            ExecutionMode expected = ExecutionMode.isVirtualSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+            Assertions.assertThat(executor.getMode()).isEqualTo(expected);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.stock.facade;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.repository.StockRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+class AtomicUpdateStockFacadeTest {
+
+    @Autowired
+    private AtomicUpdateStockFacade atomicUpdateStockFacade;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void before() {
+        stock = stockRepository.save(new Stock(1L, 100L));
+    }
+
+    @AfterEach
+    public void after(){
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    public void stock_decrease() {
+        atomicUpdateStockFacade.decrease(stock.getId(), 1L);
+
+        //100 - 1 = 99
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(99);
+    }
+
+    @Test
+    public void 수량이_0_이하면_재고를_바꾸지_않고_거절한다() {
+        Assertions.assertThatThrownBy(() -> atomicUpdateStockFacade.decrease(stock.getId(), -10L))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> atomicUpdateStockFacade.decrease(stock.getId(), 0L))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(100L);
+    }
+
+    @Test
+    public void 동시에_100개의_요청() throws InterruptedException {
+        int threadCount = 100;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    atomicUpdateStockFacade.decrease(stock.getId(), 1L);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+    }
+
+    @Test
+    public void 재고보다_많은_요청은_실패한다() throws InterruptedException {
+        int threadCount = 120;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger failCount = new AtomicInteger();
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    if (atomicUpdateStockFacade.decrease(stock.getId(), 1L) == DecreaseResult.NOT_ENOUGH_STOCK) {
+                        failCount.incrementAndGet();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+        Assertions.assertThat(failCount.get()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.stock.facade;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.domain.Stock;
+import com.example.stock.repository.StockRepository;
+import com.example.stock.service.PessimisticLockStockService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@SpringBootTest
+class CoalescingStockFacadeTest {
+
+    @Autowired
+    private CoalescingStockFacade coalescingStockFacade;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void before() {
+        stock = stockRepository.save(new Stock(1L, 100L));
+    }
+
+    @AfterEach
+    public void after(){
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    public void stock_decrease() {
+        coalescingStockFacade.decrease(stock.getId(), 1L).join();
+
+        //100 - 1 = 99
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(99);
+    }
+
+    @Test
+    public void 동시에_100개의_요청() throws InterruptedException {
+        int threadCount = 100;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    coalescingStockFacade.decrease(stock.getId(), 1L).join();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+    }
+
+    @Test
+    public void 재고가_부족한_요청만_실패한다() throws InterruptedException {
+        int threadCount = 120;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger failCount = new AtomicInteger();
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    coalescingStockFacade.decrease(stock.getId(), 1L).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof NotEnoughStockException) {
+                        failCount.incrementAndGet();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+        Assertions.assertThat(failCount.get()).isEqualTo(20);
+    }
+
+    @Test
+    public void 같은_재고는_한_번에_한_batch_만_처리한다() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicLong decreased = new AtomicLong();
+        PessimisticLockStockService slowService = new PessimisticLockStockService(stockRepository) {
+            @Override
+            public List<Boolean> decreaseEach(Long id, List<Long> quantities) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                List<Boolean> results = new ArrayList<>(quantities.size());
+                for (Long quantity : quantities) {
+                    decreased.addAndGet(quantity);
+                    results.add(true);
+                }
+                return results;
+            }
+        };
+        CoalescingStockFacade facade = new CoalescingStockFacade(slowService, 100, 4);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(facade.decrease(stock.getId(), 1L));
+            if (i % 20 == 0) {
+                Thread.sleep(5);
+            }
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        facade.shutdown();
+
+        Assertions.assertThat(maxInFlight.get()).isEqualTo(1);
+        Assertions.assertThat(decreased.get()).isEqualTo(200L);
+    }
+}
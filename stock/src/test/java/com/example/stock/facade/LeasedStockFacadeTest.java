@@ -0,0 +1,78 @@
+package com.example.stock.facade;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.repository.StockRepository;
+import com.example.stock.reservation.StockLeasePool;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+class LeasedStockFacadeTest {
+
+    @Autowired
+    private LeasedStockFacade leasedStockFacade;
+
+    @Autowired
+    private StockLeasePool stockLeasePool;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void before() {
+        stock = stockRepository.save(new Stock(1L, 100L));
+    }
+
+    @AfterEach
+    public void after(){
+        stockLeasePool.releaseAll();
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    public void 쓰지_않은_재고는_반납된다() {
+        leasedStockFacade.decrease(stock.getId(), 1L);
+        stockLeasePool.releaseAll();
+
+        //100 - 1 = 99
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(99);
+    }
+
+    @Test
+    public void 재고보다_많은_요청은_실패한다() throws InterruptedException {
+        int threadCount = 120;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger failCount = new AtomicInteger();
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    if (leasedStockFacade.decrease(stock.getId(), 1L) == DecreaseResult.NOT_ENOUGH_STOCK) {
+                        failCount.incrementAndGet();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        stockLeasePool.releaseAll();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+        Assertions.assertThat(failCount.get()).isEqualTo(20);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.stock.facade;
 
+import com.example.stock.domain.NotEnoughStockException;
 import com.example.stock.domain.Stock;
 import com.example.stock.repository.StockRepository;
 import org.assertj.core.api.Assertions;
@@ -9,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -62,4 +65,49 @@ class NamedLockStockFacadeTest {
         Stock stock = stockRepository.findById(1L).orElseThrow();
         Assertions.assertThat(stock.getQuantity()).isEqualTo(0L);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void 여러_상품을_동시에_차감해도_교착되지_않는다() throws InterruptedException {
+        Long first = stockRepository.save(new Stock(2L, 100L)).getId();
+        Long second = stockRepository.save(new Stock(3L, 100L)).getId();
+
+        int threadCount = 100;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for(int i=0; i<threadCount; i++){
+            // 요청마다 key 순서를 바꿔서 넣는다
+            Map<Long, Long> quantities = new LinkedHashMap<>();
+            if (i % 2 == 0) {
+                quantities.put(first, 1L);
+                quantities.put(second, 1L);
+            } else {
+                quantities.put(second, 1L);
+                quantities.put(first, 1L);
+            }
+            executorService.submit(() -> {
+                try {
+                    nativeLockStockFacade.decreaseAll(quantities);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        Assertions.assertThat(stockRepository.findById(first).orElseThrow().getQuantity()).isEqualTo(0L);
+        Assertions.assertThat(stockRepository.findById(second).orElseThrow().getQuantity()).isEqualTo(0L);
+    }
+
+    @Test
+    public void 여러_상품_중_하나라도_부족하면_모두_차감하지_않는다() {
+        Long first = stockRepository.save(new Stock(2L, 100L)).getId();
+        Long second = stockRepository.save(new Stock(3L, 1L)).getId();
+
+        Assertions.assertThatThrownBy(() -> nativeLockStockFacade.decreaseAll(Map.of(first, 1L, second, 2L)))
+                .isInstanceOf(NotEnoughStockException.class);
+
+        Assertions.assertThat(stockRepository.findById(first).orElseThrow().getQuantity()).isEqualTo(100L);
+        Assertions.assertThat(stockRepository.findById(second).orElseThrow().getQuantity()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.stock.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import redis.embedded.RedisServer;
+
+/**
+ * 내장 Redis 로 owner token 해제와 해제 알림을 확인한다.
+ */
+class RedisLockRepositoryTest {
+
+    private static final int PORT = 6390;
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer container;
+    private RedisLockRepository redisLockRepository;
+    private LockReleaseNotifier lockReleaseNotifier;
+
+    @BeforeEach
+    public void before() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", PORT);
+        connectionFactory.afterPropertiesSet();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisLockRepository = new RedisLockRepository(redisTemplate);
+
+        lockReleaseNotifier = new LockReleaseNotifier();
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(lockReleaseNotifier,
+                new PatternTopic(RedisLockRepository.RELEASE_CHANNEL_PREFIX + "*"));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        container.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    public void 다른_소유자의_락은_해제하지_못한다() {
+        Assertions.assertThat(redisLockRepository.lock(1L, "owner")).isTrue();
+        Assertions.assertThat(redisLockRepository.lock(1L, "other")).isFalse();
+
+        Assertions.assertThat(redisLockRepository.unlock(1L, "other")).isFalse();
+        Assertions.assertThat(redisLockRepository.lock(1L, "other")).isFalse();
+
+        Assertions.assertThat(redisLockRepository.unlock(1L, "owner")).isTrue();
+        Assertions.assertThat(redisLockRepository.lock(1L, "other")).isTrue();
+    }
+
+    @Test
+    public void 해제하면_대기자에게_알린다() throws InterruptedException {
+        redisLockRepository.lock(1L, "owner");
+        long seen = lockReleaseNotifier.generation(1L);
+
+        redisLockRepository.unlock(1L, "owner");
+        lockReleaseNotifier.await(1L, seen, 3_000);
+
+        Assertions.assertThat(lockReleaseNotifier.generation(1L)).isGreaterThan(seen);
+    }
+
+    @Test
+    public void 대기자가_없으면_key_별_신호를_남기지_않는다() throws InterruptedException {
+        for (long key = 1; key <= 100; key++) {
+            redisLockRepository.lock(key, "owner");
+            long seen = lockReleaseNotifier.generation(key);
+            redisLockRepository.unlock(key, "owner");
+            lockReleaseNotifier.await(key, seen, 3_000);
+        }
+
+        Assertions.assertThat(lockReleaseNotifier.signalCount()).isZero();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.stock.reservation;
+
+import com.example.stock.domain.Stock;
+import com.example.stock.repository.StockRepository;
+import com.example.stock.service.AtomicUpdateStockService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class StockLeasePoolTest {
+
+    @Autowired
+    private AtomicUpdateStockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private StockLeasePool pool;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void before() {
+        stock = stockRepository.save(new Stock(1L, 100L));
+        pool = new StockLeasePool(stockService, 50, 100, 1000);
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException {
+        pool.shutdown();
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    public void 수량이_0_이하면_거절한다() {
+        Assertions.assertThatThrownBy(() -> pool.decrease(stock.getId(), 0L))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> pool.decrease(stock.getId(), -5L))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        pool.releaseAll();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(100L);
+    }
+
+    @Test
+    public void timeout_이_지난_lease_는_반납하고_지운다() throws InterruptedException {
+        pool.decrease(stock.getId(), 1L);
+        Assertions.assertThat(pool.leaseCount()).isEqualTo(1);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline && pool.leaseCount() > 0) {
+            Thread.sleep(20);
+        }
+
+        Assertions.assertThat(pool.leaseCount()).isZero();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(99L);
+
+        // 지운 뒤에도 다시 빌려서 차감한다
+        pool.decrease(stock.getId(), 1L);
+        pool.releaseAll();
+        Assertions.assertThat(stockRepository.findById(stock.getId()).orElseThrow().getQuantity()).isEqualTo(98L);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.stock.reservation;
+
+import com.example.stock.domain.NotEnoughStockException;
+import com.example.stock.domain.Stock;
+import com.example.stock.repository.StockRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+class StockReservationEngineTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private StockReservationEngine engine;
+
+    private Stock stock;
+
+    @BeforeEach
+    public void before() {
+        stock = stockRepository.save(new Stock(1L, 100L));
+        engine = new StockReservationEngine(jdbcTemplate, 4);
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException {
+        engine.shutdown();
+        stockRepository.deleteAll();
+    }
+
+    @Test
+    public void stock_decrease() {
+        engine.decrease(1L, 1L);
+        engine.flush();
+
+        //100 - 1 = 99
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(99);
+    }
+
+    @Test
+    public void 동시에_100개의_요청() throws InterruptedException {
+        int threadCount = 100;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    engine.decrease(1L, 1L);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        engine.flush();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+    }
+
+    @Test
+    public void 재고보다_많은_요청은_실패한다() throws InterruptedException {
+        int threadCount = 150;
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger failCount = new AtomicInteger();
+
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    engine.decrease(1L, 1L);
+                } catch (NotEnoughStockException e) {
+                    failCount.incrementAndGet();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        engine.flush();
+        Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+        Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+        Assertions.assertThat(failCount.get()).isEqualTo(50);
+    }
+
+    @Test
+    public void 다른_경로에서_재고가_줄어도_떼어_온_만큼만_판다() throws InterruptedException {
+        // 주기 반환이 끼어들지 않도록 직접 flush 한다
+        StockReservationEngine manual = new StockReservationEngine(jdbcTemplate, 4, 50, 60_000);
+        try {
+            manual.decrease(1L, 10L);
+            Assertions.assertThat(stockRepository.findById(stock.getId()).orElseThrow().getQuantity())
+                    .isEqualTo(50L);
+
+            // 다른 노드, 다른 facade 가 DB 에 남은 50 개를 모두 판다
+            jdbcTemplate.update("update stock set quantity = 0 where id = ?", stock.getId());
+
+            for (int i = 0; i < 40; i++) {
+                manual.decrease(1L, 1L);
+            }
+            Assertions.assertThatThrownBy(() -> manual.decrease(1L, 1L))
+                    .isInstanceOf(NotEnoughStockException.class);
+            manual.flush();
+
+            Stock found = stockRepository.findById(stock.getId()).orElseThrow();
+            Assertions.assertThat(found.getQuantity()).isEqualTo(0L);
+            Assertions.assertThat(manual.getAvailable(1L)).isEqualTo(0L);
+        } finally {
+            manual.shutdown();
+        }
+    }
+
+    @Test
+    public void 쓰지_않은_수량은_flush_하면_돌려준다() {
+        engine.decrease(1L, 1L);
+        Assertions.assertThat(engine.getAvailable(1L)).isEqualTo(49L);
+
+        engine.flush();
+
+        Assertions.assertThat(engine.getAvailable(1L)).isZero();
+        Assertions.assertThat(stockRepository.findById(stock.getId()).orElseThrow().getQuantity()).isEqualTo(99L);
+    }
+
+    @Test
+    public void 수량이_0_이하이면_거부한다() {
+        Assertions.assertThatThrownBy(() -> engine.decrease(1L, 0L))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> engine.decrease(1L, -1L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.stock.retry;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BackoffRetryPolicyTest {
+
+    private final BackoffRetryPolicy retryPolicy = new BackoffRetryPolicy(5, 10, 100);
+
+    @Test
+    public void 최대_시도_횟수까지만_재시도한다() {
+        Assertions.assertThat(retryPolicy.canRetry(4)).isTrue();
+        Assertions.assertThat(retryPolicy.canRetry(5)).isFalse();
+    }
+
+    @Test
+    public void 백오프는_지수적으로_늘어나고_최대값을_넘지_않는다() {
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertThat(retryPolicy.backoffMillis(1)).isBetween(0L, 10L);
+            Assertions.assertThat(retryPolicy.backoffMillis(3)).isBetween(0L, 40L);
+            Assertions.assertThat(retryPolicy.backoffMillis(40)).isBetween(0L, 100L);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.stock.service;
 
+import com.example.stock.domain.NotEnoughStockException;
 import com.example.stock.domain.Stock;
 import com.example.stock.repository.StockRepository;
 import org.aspectj.lang.annotation.Before;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -65,4 +67,38 @@ class StockServiceTest {
         Stock stock = stockRepository.findById(1L).orElseThrow();
         Assertions.assertThat(stock.getQuantity()).isEqualTo(0L);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void 여러_재고를_한번에_차감() throws InterruptedException {
+        Long first = stockRepository.save(new Stock(2L, 100L)).getId();
+        Long second = stockRepository.save(new Stock(3L, 200L)).getId();
+
+        int threadCount = 100;
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        for(int i=0; i<threadCount; i++){
+            executorService.submit(() -> {
+                try {
+                    stockService.decreaseAll(Map.of(second, 2L, first, 1L));
+                } finally {
+                    latch.countDown();
+                }
+            });
+        };
+        latch.await();
+        Assertions.assertThat(stockRepository.findById(first).orElseThrow().getQuantity()).isEqualTo(0L);
+        Assertions.assertThat(stockRepository.findById(second).orElseThrow().getQuantity()).isEqualTo(0L);
+    }
+
+    @Test
+    public void 하나라도_부족하면_전부_롤백() {
+        Long first = stockRepository.save(new Stock(2L, 10L)).getId();
+        Long second = stockRepository.save(new Stock(3L, 1L)).getId();
+
+        assertThrows(NotEnoughStockException.class,
+                () -> stockService.decreaseAll(Map.of(first, 1L, second, 2L)));
+
+        Assertions.assertThat(stockRepository.findById(first).orElseThrow().getQuantity()).isEqualTo(10L);
+        Assertions.assertThat(stockRepository.findById(second).orElseThrow().getQuantity()).isEqualTo(1L);
+    }
+}